@@ -18,10 +18,13 @@ import ivorius.reccomplex.utils.expression.BiomeExpression;
 import ivorius.reccomplex.utils.expression.CommandExpression;
 import ivorius.reccomplex.utils.expression.DimensionExpression;
 import ivorius.reccomplex.utils.expression.ResourceExpression;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMetrics;
 import ivorius.reccomplex.world.gen.feature.decoration.RCBiomeDecorator;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.CompressedWorldData;
 import ivorius.reccomplex.world.gen.feature.structure.generic.StructureSaveHandler;
+import ivorius.reccomplex.world.gen.feature.structure.generic.WorldDataCache;
 import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerMulti;
 import ivorius.reccomplex.world.storage.loot.GenericItemCollectionRegistry;
 import net.minecraft.command.ICommandSender;
@@ -53,6 +56,7 @@ public class RCConfig
     public static Pair<String, Float> customBookTag = Pair.of("", 0.0f);
 
     public static boolean hideRedundantNegativeSpace;
+    public static int previewMeshBudget;
 
     public static float minDistToSpawnForGeneration;
     public static final TObjectFloatMap<String> spawnTweaks = new TObjectFloatHashMap<>(Hash.DEFAULT_INITIAL_SIZE, Hash.DEFAULT_LOAD_FACTOR, 1);
@@ -81,6 +85,19 @@ public class RCConfig
     public static boolean memorizeDecoration;
     public static boolean memorizeSaplings;
 
+    public static int structureDataCacheSize;
+    public static boolean compressStructureData;
+    public static int structureNBTCacheSize;
+    public static boolean compileStructureFiles;
+    public static int fileLoadingThreads;
+    public static boolean warmStructureSelectors;
+
+    public static boolean worldgenMetrics;
+    public static int worldgenMetricsDumpInterval;
+    public static int cascadeLimit;
+    public static int retrogenTickBudget;
+    public static boolean lazyLoot;
+
     public static int[] blockSelectorModifierKeys;
 
     private static boolean lightweightMode;
@@ -101,6 +118,7 @@ public class RCConfig
 
     public static float mazePlacementReversesPerRoom;
     public static long mazeTimeout;
+    public static int mazeSolverThreads;
 
     public static final Map<String, Boolean> globalToggles = new HashMap<>();
 
@@ -127,6 +145,22 @@ public class RCConfig
 
             memorizeDecoration = config.getBoolean("memorizeDecoration", CATEGORY_GENERAL, false, "Memorize decoration spawns like trees or mushrooms (for /#whatisthis). Since decoration is so common, it is recommended to use this only for debugging / balancing purposes.");
             memorizeSaplings = config.getBoolean("memorizeSaplings", CATEGORY_GENERAL, false, "Memorize sapling spawns (for /#whatisthis). Since saplings are so common, it is recommended to use this only for debugging / balancing purposes.");
+
+            structureDataCacheSize = config.getInt("structureDataCacheSize", CATEGORY_GENERAL, 256, 0, 65536, "Approximate memory, in megabytes, that may be used to keep decoded structure block data around between chunks. Set to 0 to decode structures every time they are needed.");
+            WorldDataCache.setMaximumWeight(structureDataCacheSize * 1024L * 1024L);
+            compressStructureData = config.getBoolean("compressStructureData", CATEGORY_GENERAL, false, "Keep the block data of loaded structures compressed in memory, and only inflate it when it's needed. Saves a lot of memory with big structure packs, at the cost of inflating structures again once they've dropped out of structureNBTCacheSize. Takes effect when structures are (re-)loaded.");
+            structureNBTCacheSize = config.getInt("structureNBTCacheSize", CATEGORY_GENERAL, 64, 0, 65536, "Approximate memory, in megabytes, that may be used to keep inflated block data of compressed structures around.");
+            CompressedWorldData.setMaximumWeight(structureNBTCacheSize * 1024L * 1024L);
+            compileStructureFiles = config.getBoolean("compileStructureFiles", CATEGORY_GENERAL, true, "Keep an already parsed copy of structure files in the reccomplex-cache folder, so that files that didn't change load faster next time.");
+            fileLoadingThreads = config.getInt("fileLoadingThreads", CATEGORY_GENERAL, 0, 0, 64, "Number of threads used to read structure files when loading or reloading them. Set to 0 to use one per processor, or 1 to read them one by one.");
+
+            warmStructureSelectors = config.getBoolean("warmStructureSelectors", CATEGORY_GENERAL, false, "Prepare the structure selection tables for every biome of every loaded dimension when the server starts, instead of when a biome is first generated in.");
+
+            worldgenMetrics = config.getBoolean("worldgenMetrics", CATEGORY_GENERAL, true, "Record per-structure generation timings, failures and cascading chunk generation, to be inspected with /#worldgen.");
+            worldgenMetricsDumpInterval = config.getInt("worldgenMetricsDumpInterval", CATEGORY_GENERAL, 0, 0, 86400, "Interval, in seconds, at which the worldgen metrics are written to " + RCWorldgenMetrics.DUMP_FILE_NAME + ". Set to 0 to only write them on command.");
+            cascadeLimit = config.getInt("cascadeLimit", CATEGORY_GENERAL, -1, -1, 100000, "Number of cascading chunk generations a structure may cause before it stops being suggested for generation, until the server restarts. Only chunks that are newly generated count, not ones loaded from disk. Set to -1 to only log cascades.");
+            retrogenTickBudget = config.getInt("retrogenTickBudget", CATEGORY_GENERAL, 10, 0, 1000, "Milliseconds per server tick that background retrogen jobs (/#retro --background) may use. Set to 0 to pause them.");
+            lazyLoot = config.getBoolean("lazyLoot", CATEGORY_GENERAL, false, "Leave the loot tags in generated containers and only generate their loot when the container is first opened or broken. Saves generation time and world size, but other blocks (like hoppers) may see the tags.");
         }
 
         if (configID == null || configID.equals(CATEGORY_BALANCING))
@@ -174,7 +208,8 @@ public class RCConfig
             );
 
             mazePlacementReversesPerRoom = config.getFloat("mazePlacementReversesPerRoom", CATEGORY_BALANCING, 3, -1, 100, "Maximum number of reverses per room the maze generator can do. A higher number results in a better generation success rate, but may freeze the server temporarily.");
-            mazeTimeout = config.getInt("mazeTimeout", CATEGORY_BALANCING, 20000, -1, 600000, "Maze generation timeout, in milliseconds. After the time is over, the maze generation will just give up.");
+            mazeTimeout = config.getInt("mazeTimeout", CATEGORY_BALANCING, 20000, -1, 600000, "Maze generation timeout, in milliseconds. After the time is over, the maze generation will just give up. Set to -1 for no timeout.");
+            mazeSolverThreads = config.getInt("mazeSolverThreads", CATEGORY_BALANCING, 2, 1, 64, "Number of threads shared by all maze generations. When all are busy and enough mazes are waiting, mazes are solved on the generating thread instead.");
 
             universalTransformer = null;
             Collections.addAll(universalTransformerPresets, config.getStringList("universalTransformerPresets", CATEGORY_BALANCING, new String[0], "Transformer preset names that are gonna be applied to every single generating structure. Use this if you need to enforce specific rules (e.g. \"don't ever spawn wood blocks\" (with a replace transformer)."));
@@ -13,6 +13,7 @@ import ivorius.reccomplex.block.*;
 import ivorius.reccomplex.block.legacy.BlockMazeGenerator;
 import ivorius.reccomplex.block.legacy.BlockSpawnCommand;
 import ivorius.reccomplex.block.legacy.BlockStructureGenerator;
+import ivorius.reccomplex.commands.structure.StructureSearchIndex;
 import ivorius.reccomplex.block.materials.MaterialNegativeSpace;
 import ivorius.reccomplex.block.materials.RCMaterials;
 import ivorius.reccomplex.capability.CapabilitySelection;
@@ -34,6 +35,7 @@ import ivorius.reccomplex.world.gen.feature.GenerationSanityChecker;
 import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.selector.NaturalStructureSelector;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.CompiledStructureCache;
 import ivorius.reccomplex.world.gen.feature.structure.generic.StructureSaveHandler;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.*;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.MazeRuleRegistry;
@@ -253,6 +255,8 @@ public class RCRegistryHandler
 
         RCBiomeDictionary.registerTypes();
 
+        if (RCConfig.compileStructureFiles)
+            CompiledStructureCache.prune();
         loader.register(StructureSaveHandler.INSTANCE.new Loader());
         loader.register(new FileLoaderRegistryString<>(RCFileSuffix.INVENTORY_GENERATION_COMPONENT,
                 GenericItemCollectionRegistry.INSTANCE, ItemCollectionSaveHandler.INSTANCE::fromJSON));
@@ -311,6 +315,9 @@ public class RCRegistryHandler
         StructureRegistry.INSTANCE.registerModule(new NaturalGeneration.Cache());
         StructureRegistry.INSTANCE.registerModule(new VanillaDecorationGeneration.Cache());
         StructureRegistry.INSTANCE.registerModule(new VanillaGeneration.Cache());
+        StructureRegistry.INSTANCE.registerModule(new StaticGeneration.Cache());
+        StructureRegistry.INSTANCE.registerModule(new MazeGeneration.Cache());
+        StructureRegistry.INSTANCE.registerModule(new StructureSearchIndex());
 
         SerializableStringTypeRegistry<GenericPlacer.Factor> placerFactorRegistry = FactorRegistry.INSTANCE.getTypeRegistry();
         placerFactorRegistry.registerType("limit", FactorLimit.class, new FactorLimit.Serializer());
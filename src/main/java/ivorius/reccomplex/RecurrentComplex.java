@@ -18,12 +18,16 @@ import ivorius.reccomplex.files.saving.FileSaver;
 import ivorius.reccomplex.gui.RCGuiHandler;
 import ivorius.reccomplex.gui.container.IvGuiRegistry;
 import ivorius.mcopts.translation.ServerTranslations;
+import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
 import ivorius.reccomplex.world.gen.feature.structure.registry.MCRegistrySpecial;
 import ivorius.reccomplex.world.gen.feature.structure.schematics.SchematicLoader;
 import ivorius.reccomplex.utils.*;
+import ivorius.reccomplex.utils.expression.BlockExpression;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.config.Configuration;
 import net.minecraftforge.event.RegistryEvent;
+import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventHandler;
@@ -170,6 +174,12 @@ public class RecurrentComplex
         SchematicLoader.initializeFolder();
     }
 
+    @EventHandler
+    public void onIDMapping(FMLModIdMappingEvent event)
+    {
+        BlockExpression.invalidateCompiled();
+    }
+
     @EventHandler
     public void onServerStart(FMLServerStartingEvent event)
     {
@@ -180,5 +190,11 @@ public class RecurrentComplex
     public void onServerStarted(FMLServerStartedEvent event)
     {
         ResourceDirectory.tryReload(loader, LeveledRegistry.Level.SERVER);
+
+        if (RCConfig.warmStructureSelectors)
+        {
+            for (WorldServer world : FMLCommonHandler.instance().getMinecraftServerInstance().worlds)
+                WorldGenStructures.warmSelectors(world);
+        }
     }
 }
\ No newline at end of file
@@ -8,10 +8,12 @@ package ivorius.reccomplex.client;
 import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RCProxy;
 import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.client.rendering.PreviewMeshCache;
 import ivorius.reccomplex.commands.RCCommands;
 import net.minecraft.block.Block;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.block.model.ModelResourceLocation;
+import net.minecraft.client.resources.IReloadableResourceManager;
 import net.minecraft.item.Item;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.client.ClientCommandHandler;
@@ -46,6 +48,7 @@ public class ClientProxy implements RCProxy
         if (configID == null || configID.equals(RCConfig.CATEGORY_VISUAL))
         {
             RCConfig.hideRedundantNegativeSpace = RecurrentComplex.config.getBoolean("hideRedundantNegativeSpace", RCConfig.CATEGORY_VISUAL, true, "Only show the edges of negative space blocks? (Improves performance in big builds)");
+            RCConfig.previewMeshBudget = RecurrentComplex.config.getInt("previewMeshBudget", RCConfig.CATEGORY_VISUAL, 64, 1, 4096, "Approximate graphics memory, in megabytes, that may be used to keep the shapes of previewed structures and schematics around.");
         }
 
         if (configID == null || configID.equals(RCConfig.CATEGORY_CONTROLS))
@@ -93,6 +96,9 @@ public class ClientProxy implements RCProxy
     public void preInit(FMLPreInitializationEvent event)
     {
         RCCommands.registerClientCommands(ClientCommandHandler.instance);
+
+        // Meshes refer to the old textures
+        ((IReloadableResourceManager) Minecraft.getMinecraft().getResourceManager()).registerReloadListener(resourceManager -> PreviewMeshCache.clear());
     }
 
     protected void registerTypeItemsForDefaultRender(Block... blocks)
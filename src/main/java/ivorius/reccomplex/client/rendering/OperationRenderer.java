@@ -7,7 +7,9 @@ package ivorius.reccomplex.client.rendering;
 
 import ivorius.ivtoolkit.blocks.BlockArea;
 import ivorius.reccomplex.utils.Icons;
+import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
 import net.minecraft.util.math.BlockPos;
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
 import ivorius.ivtoolkit.rendering.grid.AreaRenderer;
@@ -45,6 +47,17 @@ public class OperationRenderer
     }
 
     public static void renderGridQuadCache(GridQuadCache<?> cached, AxisAlignedTransform2D transform, BlockPos lowerCoord, int ticks, float partialTicks)
+    {
+        renderGridQuads(cached.getSize(), transform, lowerCoord, ticks, partialTicks, () ->
+        {
+            Tessellator tessellator = Tessellator.getInstance();
+            tessellator.getBuffer().begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+            addGridQuads(cached);
+            tessellator.draw();
+        });
+    }
+
+    public static void renderGridQuads(float[] size, AxisAlignedTransform2D transform, BlockPos lowerCoord, int ticks, float partialTicks, Runnable draw)
     {
         GlStateManager.enableBlend();
         OpenGlHelper.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE, GL11.GL_ZERO);
@@ -56,10 +69,22 @@ public class OperationRenderer
 
         GlStateManager.pushMatrix();
         GlStateManager.translate(lowerCoord.getX(), lowerCoord.getY(), lowerCoord.getZ());
-        applyTransformVisual(transform, cached.getSize());
+        applyTransformVisual(transform, size);
+
+        draw.run();
+
+        GlStateManager.popMatrix();
 
-        Tessellator tessellator = Tessellator.getInstance();
-        tessellator.getBuffer().begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+        GlStateManager.enableCull();
+        GlStateManager.alphaFunc(GL11.GL_GREATER, 0.002f);
+        GlStateManager.disableBlend();
+    }
+
+    /**
+     * Adds the quads to the tessellator's buffer, which must be drawing {@link DefaultVertexFormats#POSITION_TEX} quads.
+     */
+    public static void addGridQuads(GridQuadCache<?> cached)
+    {
         for (GridQuadCache.CachedQuadLevel<?> cachedQuadLevel : cached)
         {
             EnumFacing direction = cachedQuadLevel.direction;
@@ -80,12 +105,40 @@ public class OperationRenderer
             }
             quads.position(0);
         }
-        tessellator.draw();
-        GlStateManager.popMatrix();
+    }
 
-        GlStateManager.enableCull();
-        GlStateManager.alphaFunc(GL11.GL_GREATER, 0.002f);
-        GlStateManager.disableBlend();
+    /**
+     * Uploads the quads into a new vertex buffer, to be drawn with {@link #drawGridQuads(VertexBuffer)}.
+     */
+    public static VertexBuffer uploadGridQuads(GridQuadCache<?> cached)
+    {
+        BufferBuilder buffer = Tessellator.getInstance().getBuffer();
+        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+        addGridQuads(cached);
+        buffer.finishDrawing();
+        buffer.reset();
+
+        VertexBuffer vertexBuffer = new VertexBuffer(DefaultVertexFormats.POSITION_TEX);
+        vertexBuffer.bufferData(buffer.getByteBuffer());
+        return vertexBuffer;
+    }
+
+    public static void drawGridQuads(VertexBuffer vertexBuffer)
+    {
+        int stride = DefaultVertexFormats.POSITION_TEX.getNextOffset();
+
+        vertexBuffer.bindBuffer();
+        GlStateManager.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+        GlStateManager.glVertexPointer(3, GL11.GL_FLOAT, stride, 0);
+        OpenGlHelper.setClientActiveTexture(OpenGlHelper.defaultTexUnit);
+        GlStateManager.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        GlStateManager.glTexCoordPointer(2, GL11.GL_FLOAT, stride, 12);
+
+        vertexBuffer.drawArrays(GL11.GL_QUADS);
+
+        vertexBuffer.unbindBuffer();
+        GlStateManager.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+        GlStateManager.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
     }
 
     @Nullable
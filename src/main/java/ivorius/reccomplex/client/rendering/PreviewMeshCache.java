@@ -0,0 +1,189 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.client.rendering;
+
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.rendering.grid.GridQuadCache;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Built preview meshes, so that previewing the same content again doesn't decode and mesh it again.
+ * Meshes are built in the background and uploaded to the GPU once they're done; until then, callers just don't draw them.
+ * The least recently drawn meshes are dropped when over {@link RCConfig#previewMeshBudget}.
+ * <p>
+ * Only to be used from the render thread.
+ */
+@SideOnly(Side.CLIENT)
+public class PreviewMeshCache
+{
+    private static final ExecutorService builder = Executors.newSingleThreadExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "ReC Preview Builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Access order, so the eldest mesh is the least recently drawn one
+    private static final LinkedHashMap<Object, Mesh> meshes = new LinkedHashMap<>(16, 0.75f, true);
+    private static long usedBytes;
+
+    /**
+     * @param key   Identifies the content, e.g. its ID and a hash of its data.
+     * @param build Builds the quads; called on a background thread, so it mustn't touch the live world.
+     * @return The mesh for the key, which may still be building.
+     */
+    @Nonnull
+    public static Mesh get(@Nonnull Object key, @Nonnull Supplier<GridQuadCache<?>> build)
+    {
+        Mesh mesh = meshes.get(key);
+        if (mesh == null)
+            meshes.put(key, mesh = new Mesh(key, CompletableFuture.supplyAsync(build, builder)));
+        return mesh;
+    }
+
+    public static long usedBytes()
+    {
+        return usedBytes;
+    }
+
+    public static void clear()
+    {
+        meshes.values().forEach(Mesh::delete);
+        meshes.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * @param keep The mesh that's being uploaded, which is kept even if it's too big alone.
+     */
+    protected static void evict(Mesh keep)
+    {
+        long budget = RCConfig.previewMeshBudget * 1024L * 1024L;
+
+        Iterator<Mesh> iterator = meshes.values().iterator();
+        while (usedBytes > budget && iterator.hasNext())
+        {
+            Mesh mesh = iterator.next();
+            if (mesh == keep || mesh.future != null)
+                continue; // Still building, doesn't use anything yet
+
+            iterator.remove();
+            mesh.delete();
+        }
+    }
+
+    protected static long countBytes(GridQuadCache<?> cached)
+    {
+        long quads = 0;
+        for (GridQuadCache.CachedQuadLevel<?> level : cached)
+            quads += level.quads.limit() / 4;
+        return quads * 4 * DefaultVertexFormats.POSITION_TEX.getNextOffset();
+    }
+
+    public static class Mesh
+    {
+        protected final Object key;
+        protected CompletableFuture<GridQuadCache<?>> future;
+
+        protected float[] size;
+        protected VertexBuffer vertexBuffer;
+        protected GridQuadCache<?> quads; // Without VBOs, drawn directly
+        protected long bytes;
+
+        public Mesh(Object key, CompletableFuture<GridQuadCache<?>> future)
+        {
+            this.key = key;
+            this.future = future;
+        }
+
+        public boolean isDone()
+        {
+            return size != null;
+        }
+
+        /**
+         * @return Whether the mesh was ready to be drawn.
+         */
+        public boolean draw(AxisAlignedTransform2D transform, BlockPos lowerCoord, int ticks, float partialTicks)
+        {
+            if (!upload())
+                return false;
+
+            if (vertexBuffer != null)
+                OperationRenderer.renderGridQuads(size, transform, lowerCoord, ticks, partialTicks, () -> OperationRenderer.drawGridQuads(vertexBuffer));
+            else
+                OperationRenderer.renderGridQuadCache(quads, transform, lowerCoord, ticks, partialTicks);
+
+            return true;
+        }
+
+        protected boolean upload()
+        {
+            if (size != null)
+                return true;
+            if (future == null || !future.isDone())
+                return false;
+
+            GridQuadCache<?> cached;
+            try
+            {
+                cached = future.join();
+            }
+            catch (CompletionException e)
+            {
+                RecurrentComplex.logger.error("Error building preview of " + key, e.getCause());
+                // Don't keep it around; the next get builds it again
+                meshes.remove(key, this);
+                return false;
+            }
+            finally
+            {
+                future = null;
+            }
+
+            bytes = countBytes(cached);
+            if (OpenGlHelper.useVbo())
+                vertexBuffer = OperationRenderer.uploadGridQuads(cached);
+            else
+                quads = cached;
+            size = cached.getSize();
+
+            usedBytes += bytes;
+            evict(this);
+
+            return true;
+        }
+
+        protected void delete()
+        {
+            if (vertexBuffer != null)
+                vertexBuffer.deleteGlBuffers();
+            vertexBuffer = null;
+            quads = null;
+
+            if (size != null)
+                usedBytes -= bytes;
+            size = null;
+            future = null;
+        }
+    }
+}
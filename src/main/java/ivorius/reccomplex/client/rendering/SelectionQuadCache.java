@@ -16,8 +16,10 @@ import net.minecraft.entity.Entity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class SelectionQuadCache
@@ -26,7 +28,8 @@ public class SelectionQuadCache
     {
         public static final String NULL_PLACEHOLDER = "_null_";
 
-        protected GridQuadCache<?> quadCache;
+        protected Object key;
+        protected Supplier<GridQuadCache<?>> build;
         protected BlockPos lowerCoord;
 
         public Visualizer(Selection selection, MazeVisualizationContext context)
@@ -39,8 +42,10 @@ public class SelectionQuadCache
                     e -> BlockPositions.fromIntArray(e.getKey().getCoordinates()).subtract(lowerCoord),
                     e -> e.getValue() != null ? e.getValue() : NULL_PLACEHOLDER // Hax, because null value crashes with NPE
             ));
+            int[] size = realWorldSelection.boundsSize();
 
-            quadCache = GridQuadCache.createQuadCache(realWorldSelection.boundsSize(), new float[]{1, 1, 1}, input -> {
+            key = Arrays.asList("selection", coords.hashCode(), size[0], size[1], size[2]);
+            build = () -> GridQuadCache.createQuadCache(size, new float[]{1, 1, 1}, input -> {
                 BlockPos coord = input.getLeft();
                 EnumFacing direction = input.getRight();
 
@@ -55,7 +60,7 @@ public class SelectionQuadCache
         public void draw(Entity renderEntity, float partialTicks)
         {
             GlStateManager.color(0.8f, 0.75f, 0.5f);
-            OperationRenderer.renderGridQuadCache(quadCache, AxisAlignedTransform2D.ORIGINAL, lowerCoord, renderEntity.ticksExisted, partialTicks);
+            PreviewMeshCache.get(key, build).draw(AxisAlignedTransform2D.ORIGINAL, lowerCoord, renderEntity.ticksExisted, partialTicks);
         }
     }
 }
@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.commands.info;
+
+import ivorius.mcopts.commands.CommandSplit;
+import ivorius.mcopts.commands.SimpleCommand;
+import ivorius.mcopts.commands.parameters.NaP;
+import ivorius.mcopts.commands.parameters.Parameters;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.commands.RCTextStyle;
+import ivorius.reccomplex.world.gen.feature.CascadeDetector;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMetrics;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeSolver;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+public class CommandWorldgen extends CommandSplit
+{
+    public static final String ALL_PHASES = "all";
+
+    public CommandWorldgen()
+    {
+        super(RCConfig.commandPrefix + "worldgen");
+
+        add(new SimpleCommand("top", expect -> expect
+                .any(Stream.concat(Stream.of(ALL_PHASES), Arrays.stream(RCWorldgenMonitor.Phase.values()).map(p -> p.id)).toArray()).descriptionU("phase")
+                .named("count", "c").any(10, 20, 50)
+        )
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                String phaseID = parameters.get(0).optional().orElse(ALL_PHASES);
+                RCWorldgenMonitor.Phase phase = ALL_PHASES.equals(phaseID) ? null
+                        : parameters.get(0).map(RCWorldgenMonitor.Phase::fromID, s -> new CommandException("No such phase: " + s)).require();
+                int count = parameters.get("count").to(NaP::asInt).optional().orElse(10);
+
+                List<RCWorldgenMetrics.StructureMetrics> top = RCWorldgenMetrics.top(phase, count);
+
+                if (top.isEmpty())
+                    sender.sendMessage(RecurrentComplex.translations.get("commands.rcworldgen.none"));
+
+                for (RCWorldgenMetrics.StructureMetrics metrics : top)
+                {
+                    long nanos = phase != null ? metrics.phases.get(phase).totalNanos() : metrics.totalNanos();
+                    long runs = metrics.phases.get(phase != null ? phase : RCWorldgenMonitor.Phase.GENERATE).count();
+
+                    sender.sendMessage(RecurrentComplex.translations.format("commands.rcworldgen.top",
+                            RCTextStyle.structure(metrics.structureID), String.format(Locale.ROOT, "%.1f", RCWorldgenMetrics.millis(nanos)),
+                            runs, metrics.failures(), metrics.cascades.sum()));
+                }
+            }
+        });
+
+        add(new SimpleCommand("dump", expect -> {})
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                File file = RCWorldgenMetrics.dumpFile();
+
+                try
+                {
+                    RCWorldgenMetrics.dump(file);
+                }
+                catch (IOException e)
+                {
+                    throw new CommandException("Could not write worldgen metrics: " + e.getMessage());
+                }
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcworldgen.dump", file.getAbsolutePath()));
+            }
+        });
+
+        add(new SimpleCommand("mazes", expect -> {})
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                long solves = MazeSolver.solves.sum();
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcworldgen.mazes",
+                        solves, MazeSolver.timeouts.sum(),
+                        String.format(Locale.ROOT, "%.1f", solves > 0 ? RCWorldgenMetrics.millis(MazeSolver.solveNanos.sum() / solves) : 0),
+                        String.format(Locale.ROOT, "%.1f", RCWorldgenMetrics.millis(MazeSolver.maxSolveNanos.get())),
+                        MazeSolver.activeSolves(), MazeSolver.queueDepth()));
+            }
+        });
+
+        add(new SimpleCommand("reset", expect -> {})
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                RCWorldgenMetrics.reset();
+                CascadeDetector.reset();
+                MazeSolver.resetMetrics();
+                sender.sendMessage(RecurrentComplex.translations.get("commands.rcworldgen.reset"));
+            }
+        });
+
+        permitFor(2);
+    }
+}
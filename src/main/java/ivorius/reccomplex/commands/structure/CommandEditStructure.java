@@ -61,7 +61,7 @@ public class CommandEditStructure extends CommandExpecting
         if (base != from)
         {
             from = from.copyAsGenericStructure();
-            from.worldDataCompound = base.worldDataCompound.copy();
+            from.worldDataCompound = base.worldData().copy();
         }
 
         PacketEditStructureHandler.openEditStructure(entityPlayerMP, from, entityPlayerMP.getPosition(), structureID, directory);
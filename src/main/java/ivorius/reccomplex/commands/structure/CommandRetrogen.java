@@ -14,9 +14,8 @@ import ivorius.mcopts.commands.parameters.expect.Expect;
 import ivorius.mcopts.commands.parameters.expect.MCE;
 import ivorius.reccomplex.commands.parameters.expect.RCE;
 import ivorius.reccomplex.commands.parameters.RCP;
-import ivorius.reccomplex.files.RCFiles;
-import ivorius.reccomplex.files.loading.FileSuffixFilter;
 import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
+import ivorius.reccomplex.world.gen.feature.WorldRetrogenData;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
@@ -29,7 +28,6 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nonnull;
 import java.io.File;
-import java.util.Arrays;
 import java.util.Random;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
@@ -42,16 +40,7 @@ public class CommandRetrogen extends CommandExpecting
 {
     public static Stream<Pair<Integer, Integer>> existingRegions(File worldDir)
     {
-        File regionsDirectory = RCFiles.getValidatedFolder(new File(worldDir, "region"), false);
-        if (regionsDirectory == null) return Stream.empty();
-
-        String[] mcas = regionsDirectory.list(new FileSuffixFilter("mca"));
-        if (mcas == null) throw new IllegalStateException();
-
-        return Arrays.stream(mcas).map(s -> s.split("\\."))
-                .filter(p -> p.length == 4 && p[0].equals("r")) // Is region file
-                .map(p -> Pair.of(Integer.parseInt(p[1]), Integer.parseInt(p[2])))
-                .filter(rfc -> rfc.getLeft() != null && rfc.getRight() != null); // Has coords
+        return WorldRetrogenData.existingRegions(worldDir);
     }
 
     public static Stream<ChunkPos> existingChunks(World world)
@@ -74,7 +63,7 @@ public class CommandRetrogen extends CommandExpecting
 
     public static Random getRandom(WorldServer world, ChunkPos pos)
     {
-        return world.setRandomSeed(pos.x, pos.z, 0xDEADBEEF);
+        return WorldRetrogenData.getRandom(world, pos);
     }
 
     public static long retrogen(WorldServer world, Predicate<Structure> structurePredicate)
@@ -101,7 +90,10 @@ public class CommandRetrogen extends CommandExpecting
     {
         expect
                 .named("exp").words(RCE::structurePredicate).descriptionU("resource expression: only generate these structures")
-                .named("dimension", "d").then(MCE::dimension);
+                .named("dimension", "d").then(MCE::dimension)
+                .flag("background", "b")
+                .flag("status", "s")
+                .flag("cancel", "c");
     }
 
     @Override
@@ -112,6 +104,36 @@ public class CommandRetrogen extends CommandExpecting
         Predicate<Structure> structurePredicate = parameters.get("exp").to(RCP::structurePredicate).optional().orElse(null);
         WorldServer world = parameters.get("dimension").to(MCP.dimension(server, commandSender)).require();
 
+        if (parameters.has("status") || parameters.has("cancel"))
+        {
+            WorldRetrogenData data = WorldRetrogenData.get(world);
+
+            if (!data.isActive())
+                throw new CommandException("commands.rcretro.none");
+
+            if (parameters.has("cancel"))
+            {
+                data.cancel();
+                commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.cancel", String.valueOf(data.processed())));
+            }
+            else
+            {
+                long eta = data.eta();
+                commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.status",
+                        String.format("%.1f", data.progress() * 100), String.valueOf(data.processed()), String.valueOf(data.generated()),
+                        String.format("%.1f", data.throughput()), eta >= 0 ? String.format("%d:%02d", eta / 60, eta % 60) : "?"));
+            }
+            return;
+        }
+
+        if (parameters.has("background"))
+        {
+            WorldRetrogenData data = WorldRetrogenData.get(world);
+            data.start(world, structurePredicate != null ? parameters.get("exp").require() : null);
+            commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.background", String.valueOf(data.regionCount())));
+            return;
+        }
+
         long count = retrogen(world, structurePredicate);
 
         commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.count", String.valueOf(count)));
@@ -33,7 +33,6 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.ToDoubleBiFunction;
 import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 25.05.14.
@@ -67,8 +66,17 @@ public class CommandSearchStructure extends CommandExpecting
     @Nonnull
     public static <T> PriorityQueue<T> search(Set<T> omega, ToDoubleFunction<T> rank)
     {
-        PriorityQueue<T> strucs = new PriorityQueue<>(10, (o1, o2) -> Doubles.compare(rank.applyAsDouble(o1), rank.applyAsDouble(o2)));
-        strucs.addAll(omega.stream().filter(s -> rank.applyAsDouble(s) > 0).collect(Collectors.toList()));
+        // Rank each element once, not once per comparison
+        Map<T, Double> ranks = new HashMap<>();
+        for (T t : omega)
+        {
+            double r = rank.applyAsDouble(t);
+            if (r > 0)
+                ranks.put(t, r);
+        }
+
+        PriorityQueue<T> strucs = new PriorityQueue<>(10, (o1, o2) -> Doubles.compare(ranks.get(o1), ranks.get(o2)));
+        strucs.addAll(ranks.keySet());
         return strucs;
     }
 
@@ -90,6 +98,24 @@ public class CommandSearchStructure extends CommandExpecting
         });
     }
 
+    public static <T> void considerIndexed(List<ToDoubleFunction<String>> ranks, Parameter<String> parameter, Function<Parameter<String>, Parameter<T>> fun, ToDoubleBiFunction<String, T> rank) throws CommandException
+    {
+        if (!parameter.has(1))
+            return;
+
+        T t = parameter.to(fun).require();
+        ranks.add(name -> rank.applyAsDouble(name, t));
+    }
+
+    public static <T> void considerRanked(List<ToDoubleFunction<String>> ranks, Parameter<String> parameter, Function<Parameter<String>, Parameter<T>> fun, Function<T, ToDoubleFunction<String>> rank) throws CommandException
+    {
+        if (!parameter.has(1))
+            return;
+
+        // Ranks everything at once
+        ranks.add(rank.apply(parameter.to(fun).require()));
+    }
+
     @Override
     public String getName()
     {
@@ -123,17 +149,17 @@ public class CommandSearchStructure extends CommandExpecting
 
         List<ToDoubleFunction<String>> ranks = new ArrayList<>();
 
-        consider(ranks, parameters.get(0), Parameter::varargsList,
-                (s, t) -> StructureSearch.searchRank(t, StructureSearch.keywords(StructureRegistry.INSTANCE.id(s), s)));
+        StructureSearchIndex index = StructureSearchIndex.get();
 
-        consider(ranks, parameters.get("containing"),
+        considerRanked(ranks, parameters.get(0), Parameter::varargsList, index::keywords);
+        considerIndexed(ranks, parameters.get("containing"),
                 e -> RCP.expression(e, new BlockExpression(RecurrentComplex.specialRegistry)),
-                StructureSearch::containedBlocks);
-        consider(ranks, parameters.get("biome"), MCP::biome, StructureSearch::biome);
-        consider(ranks, parameters.get("dimension"), MCP.dimension(server, sender), StructureSearch::dimension);
-        consider(ranks, parameters.get("maze"), p -> p, StructureSearch::maze);
-        consider(ranks, parameters.get("list"), p -> p, StructureSearch::list);
-        consider(ranks, parameters.get("author"), p -> p, StructureSearch::author);
+                index::containedBlocks);
+        considerIndexed(ranks, parameters.get("biome"), MCP::biome, index::biome);
+        considerIndexed(ranks, parameters.get("dimension"), MCP.dimension(server, sender), index::dimension);
+        considerIndexed(ranks, parameters.get("maze"), p -> p, index::maze);
+        considerIndexed(ranks, parameters.get("list"), p -> p, index::list);
+        considerRanked(ranks, parameters.get("author"), p -> p, index::author);
 
         boolean all = parameters.has("all");
 
@@ -5,13 +5,11 @@
 
 package ivorius.reccomplex.commands.structure;
 
-import com.google.common.base.Predicates;
-import com.google.common.collect.Lists;
-import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.reccomplex.utils.expression.BlockExpression;
 import ivorius.reccomplex.world.gen.feature.selector.StructureSelector;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
 import ivorius.reccomplex.world.gen.feature.structure.generic.Metadata;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.*;
@@ -23,7 +21,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * Created by lukas on 05.07.17.
@@ -62,7 +59,7 @@ public class StructureSearch
 
     public static double searchRank(List<String> query, Collection<String> keywords)
     {
-        return keywords.stream().filter(Predicates.contains(Pattern.compile(String.join("|", Lists.transform(query, Pattern::quote)), Pattern.CASE_INSENSITIVE))::apply).count();
+        return StructureSearchIndex.rank(StructureSearchIndex.normalize(query), StructureSearchIndex.normalize(keywords));
     }
 
     public static double biome(Structure<?> structure, Biome biome)
@@ -121,12 +118,11 @@ public class StructureSearch
         if (structure == null)
             return 0;
 
-        IvBlockCollection collection = structure.blockCollection();
+        BlockStateHistogram histogram = structure.blockHistogram();
 
-        if (collection == null)
+        if (histogram == null)
             return 0;
 
-        return collection.area().stream()
-                .anyMatch(p -> matcher.evaluate(collection.getBlockState(p))) ? 1 : 0;
+        return histogram.anyMatch(matcher::test) ? 1 : 0;
     }
 }
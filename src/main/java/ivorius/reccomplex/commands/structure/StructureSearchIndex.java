@@ -0,0 +1,344 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.commands.structure;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import ivorius.reccomplex.dimensions.DimensionDictionary;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.utils.expression.BlockExpression;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
+import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.ListGeneration;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.MazeGeneration;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.biome.Biome;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Search data of all registered structures, so that searches don't need to re-collect keywords or re-decode
+ * block data. Entries are updated one by one as structures are (un-)registered.
+ * <p>
+ * Block states come from the structures' histograms, which may need decoding the first time a structure is searched by content.
+ * <p>
+ * Keywords and authors are indexed by their trigrams, so term searches only look at structures that contain all of a term's trigrams.
+ * Terms shorter than that look at every structure.
+ */
+public class StructureSearchIndex extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    protected final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    protected final Map<String, Object2IntMap<String>> lists = new HashMap<>();
+    protected final Map<String, Object2IntMap<String>> mazes = new HashMap<>();
+    protected final Map<String, Set<String>> keywordGrams = new HashMap<>();
+    protected final Map<String, Set<String>> authorGrams = new HashMap<>();
+
+    protected boolean valid;
+
+    public static final int GRAM_LENGTH = 3;
+
+    @Nonnull
+    public static StructureSearchIndex get()
+    {
+        return StructureRegistry.INSTANCE.module(StructureSearchIndex.class);
+    }
+
+    @Nonnull
+    public static String[] normalize(@Nonnull Collection<String> strings)
+    {
+        return strings.stream().filter(Objects::nonNull).map(s -> s.toLowerCase(Locale.ROOT)).toArray(String[]::new);
+    }
+
+    /**
+     * @return The number of keywords containing any of the (normalized) terms.
+     */
+    public static int rank(@Nonnull String[] terms, @Nonnull String[] keywords)
+    {
+        int rank = 0;
+        for (String keyword : keywords)
+        {
+            for (String term : terms)
+            {
+                if (keyword.contains(term))
+                {
+                    rank++;
+                    break;
+                }
+            }
+        }
+        return rank;
+    }
+
+    @Override
+    public synchronized void invalidate()
+    {
+        entries.clear();
+        lists.clear();
+        mazes.clear();
+        keywordGrams.clear();
+        authorGrams.clear();
+        valid = false;
+    }
+
+    @Override
+    public synchronized void invalidate(String id)
+    {
+        if (!valid)
+            return;
+
+        Entry old = entries.remove(id);
+        if (old != null)
+        {
+            remove(lists, old.lists, id);
+            remove(mazes, old.mazes, id);
+            removeGrams(keywordGrams, grams(old.keywords), id);
+            removeGrams(authorGrams, grams(old.authors), id);
+        }
+
+        Structure<?> structure = registry.get(id);
+        if (structure != null)
+            add(id, structure);
+    }
+
+    protected synchronized void ensureValid()
+    {
+        if (valid)
+            return;
+
+        registry.map().forEach(this::add);
+        valid = true;
+    }
+
+    protected void add(String id, Structure<?> structure)
+    {
+        Entry entry = new Entry(id, structure);
+        entries.put(id, entry);
+
+        add(lists, entry.lists, id);
+        add(mazes, entry.mazes, id);
+        addGrams(keywordGrams, grams(entry.keywords), id);
+        addGrams(authorGrams, grams(entry.authors), id);
+    }
+
+    @Nonnull
+    public static Set<String> grams(@Nonnull String[] strings)
+    {
+        Set<String> grams = new HashSet<>();
+        for (String string : strings)
+            for (int i = 0; i + GRAM_LENGTH <= string.length(); i++)
+                grams.add(string.substring(i, i + GRAM_LENGTH));
+        return grams;
+    }
+
+    /**
+     * @return The IDs of all structures that may have a string containing the term, or null if the term is too short to tell.
+     */
+    @Nullable
+    protected static Set<String> candidates(Map<String, Set<String>> index, String term)
+    {
+        if (term.length() < GRAM_LENGTH)
+            return null;
+
+        // All matches are in every one of the gram's sets, so the smallest one will do
+        Set<String> candidates = null;
+        for (String gram : grams(new String[]{term}))
+        {
+            Set<String> ids = index.get(gram);
+            if (ids == null)
+                return Collections.emptySet();
+            if (candidates == null || ids.size() < candidates.size())
+                candidates = ids;
+        }
+        return candidates;
+    }
+
+    protected static void addGrams(Map<String, Set<String>> index, Set<String> grams, String id)
+    {
+        grams.forEach(gram -> index.computeIfAbsent(gram, k -> new HashSet<>()).add(id));
+    }
+
+    protected static void removeGrams(Map<String, Set<String>> index, Set<String> grams, String id)
+    {
+        for (String gram : grams)
+        {
+            Set<String> ids = index.get(gram);
+            if (ids != null)
+            {
+                ids.remove(id);
+                if (ids.isEmpty())
+                    index.remove(gram);
+            }
+        }
+    }
+
+    protected static void add(Map<String, Object2IntMap<String>> index, Object2IntMap<String> counts, String id)
+    {
+        counts.object2IntEntrySet().forEach(e -> index.computeIfAbsent(e.getKey(), k -> new Object2IntOpenHashMap<>()).put(id, e.getIntValue()));
+    }
+
+    protected static void remove(Map<String, Object2IntMap<String>> index, Object2IntMap<String> counts, String id)
+    {
+        for (String key : counts.keySet())
+        {
+            Object2IntMap<String> ids = index.get(key);
+            if (ids != null)
+            {
+                ids.removeInt(id);
+                if (ids.isEmpty())
+                    index.remove(key);
+            }
+        }
+    }
+
+    @Nullable
+    public Entry entry(String id)
+    {
+        ensureValid();
+        return entries.get(id);
+    }
+
+    /**
+     * @return The keyword rank of every structure, see {@link #rank(String[], String[])}.
+     */
+    @Nonnull
+    public ToDoubleFunction<String> keywords(List<String> query)
+    {
+        return ranks(keywordGrams, normalize(query), entry -> entry.keywords)::getInt;
+    }
+
+    /**
+     * @return The author rank of every structure, see {@link #rank(String[], String[])}.
+     */
+    @Nonnull
+    public ToDoubleFunction<String> author(String author)
+    {
+        return ranks(authorGrams, normalize(Collections.singletonList(author)), entry -> entry.authors)::getInt;
+    }
+
+    protected synchronized Object2IntMap<String> ranks(Map<String, Set<String>> index, String[] terms, Function<Entry, String[]> strings)
+    {
+        ensureValid();
+
+        Set<String> candidates = new HashSet<>();
+        for (String term : terms)
+        {
+            Set<String> termCandidates = candidates(index, term);
+            if (termCandidates == null)
+            {
+                candidates = entries.keySet();
+                break;
+            }
+            candidates.addAll(termCandidates);
+        }
+
+        Object2IntMap<String> ranks = new Object2IntOpenHashMap<>();
+        for (String id : candidates)
+        {
+            int rank = rank(terms, strings.apply(entries.get(id)));
+            if (rank > 0)
+                ranks.put(id, rank);
+        }
+        return ranks;
+    }
+
+    public synchronized double list(String id, String listID)
+    {
+        ensureValid();
+        Object2IntMap<String> ids = lists.get(listID);
+        return ids != null ? ids.getInt(id) : 0;
+    }
+
+    public synchronized double maze(String id, String mazeID)
+    {
+        ensureValid();
+        Object2IntMap<String> ids = mazes.get(mazeID);
+        return ids != null ? ids.getInt(id) : 0;
+    }
+
+    public double biome(String id, Biome biome)
+    {
+        Entry entry = entry(id);
+        return entry != null ? entry.biomeWeights.computeIfAbsent(biome, b -> StructureSearch.biome(entry.structure, b)) : 0;
+    }
+
+    public double dimension(String id, WorldServer world)
+    {
+        Entry entry = entry(id);
+        if (entry == null)
+            return 0;
+
+        List<Object> key = Arrays.asList(world.provider.getDimension(), DimensionDictionary.getGeneration());
+        return entry.dimensionWeights.computeIfAbsent(key, k -> StructureSearch.dimension(entry.structure, world));
+    }
+
+    public double containedBlocks(String id, BlockExpression matcher)
+    {
+        Entry entry = entry(id);
+        if (entry == null)
+            return 0;
+
+        for (IBlockState state : entry.states())
+        {
+            if (matcher.test(state))
+                return 1;
+        }
+
+        return 0;
+    }
+
+    public static class Entry
+    {
+        public final String id;
+        public final Structure<?> structure;
+
+        public final String[] keywords;
+        public final String[] authors;
+        public final Object2IntMap<String> lists = new Object2IntOpenHashMap<>();
+        public final Object2IntMap<String> mazes = new Object2IntOpenHashMap<>();
+
+        protected final Map<Biome, Double> biomeWeights = new ConcurrentHashMap<>();
+        protected final Map<List<Object>, Double> dimensionWeights = new ConcurrentHashMap<>();
+
+        protected volatile Set<IBlockState> states;
+
+        public Entry(String id, Structure<?> structure)
+        {
+            this.id = id;
+            this.structure = structure;
+
+            keywords = normalize(StructureSearch.keywords(id, structure));
+            authors = normalize(structure instanceof GenericStructure
+                    ? Collections.singletonList(((GenericStructure) structure).metadata.authors)
+                    : Collections.emptyList());
+
+            structure.generationTypes(ListGeneration.class).forEach(g -> lists.put(g.listID, lists.getInt(g.listID) + 1));
+            structure.generationTypes(MazeGeneration.class).forEach(g -> mazes.put(g.mazeID, mazes.getInt(g.mazeID) + 1));
+        }
+
+        /**
+         * @return All distinct block states the structure contains.
+         */
+        @Nonnull
+        public Set<IBlockState> states()
+        {
+            Set<IBlockState> states = this.states;
+            if (states == null)
+            {
+                BlockStateHistogram histogram = structure.blockHistogram();
+                this.states = states = histogram != null ? histogram.states() : Collections.emptySet();
+            }
+            return states;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.minecraft.world.WorldProvider;
 
@@ -102,6 +103,8 @@ public class DimensionDictionary
 
     private static final Set<String> SET_UNCATEGORIZED = Collections.singleton(UNCATEGORIZED);
 
+    private static final AtomicInteger generation = new AtomicInteger();
+
     static
     {
         registerType(UNCATEGORIZED);
@@ -131,6 +134,7 @@ public class DimensionDictionary
         dTypes.addAll(types);
 
         types.forEach(DimensionDictionary::registerType);
+        invalidate();
     }
 
     /**
@@ -150,6 +154,7 @@ public class DimensionDictionary
             else
                 dTypes.removeAll(types);
         }
+        invalidate();
     }
 
     /**
@@ -160,7 +165,10 @@ public class DimensionDictionary
     public static void registerType(String type)
     {
         if (!types.containsKey(type))
+        {
             types.put(type, new Type());
+            invalidate();
+        }
     }
 
     /**
@@ -186,6 +194,8 @@ public class DimensionDictionary
 
         for (String sub : subtypes)
             registerGetType(sub).supertypes.add(type);
+
+        invalidate();
     }
 
     /**
@@ -201,6 +211,27 @@ public class DimensionDictionary
 
         for (String supertype : supertypes)
             registerGetType(supertype).subtypes.add(type);
+
+        invalidate();
+    }
+
+    /**
+     * Notifies caches depending on dimension types that they changed.
+     * Registration methods do this automatically.
+     */
+    public static void invalidate()
+    {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns a number that changes every time any dimension types change.
+     *
+     * @return The current generation.
+     */
+    public static int getGeneration()
+    {
+        return generation.get();
     }
 
     /**
@@ -12,14 +12,18 @@ import ivorius.reccomplex.Repository;
 import ivorius.reccomplex.Wiki;
 import ivorius.reccomplex.capability.CapabilitySelection;
 import ivorius.reccomplex.capability.RCEntityInfo;
+import ivorius.reccomplex.client.rendering.PreviewMeshCache;
 import ivorius.reccomplex.client.rendering.SelectionRenderer;
 import ivorius.reccomplex.commands.RCCommands;
 import ivorius.reccomplex.events.ItemGenerationEvent;
 import ivorius.reccomplex.gui.GuiHider;
 import ivorius.reccomplex.item.ItemInputHandler;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMetrics;
+import ivorius.reccomplex.world.gen.feature.WorldRetrogenData;
 import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
 import ivorius.reccomplex.world.gen.feature.WorldRandomData;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.storage.loot.LootGenerationHandler;
 import ivorius.reccomplex.world.storage.loot.LootTable;
 import ivorius.reccomplex.world.storage.loot.WeightedItemCollectionRegistry;
 import net.minecraft.client.Minecraft;
@@ -53,7 +57,10 @@ import net.minecraftforge.event.AttachCapabilitiesEvent;
 import net.minecraftforge.event.CommandEvent;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.event.terraingen.PopulateChunkEvent;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.client.event.ConfigChangedEvent;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
@@ -95,6 +102,28 @@ public class RCForgeEventHandler
         }
     }
 
+    @SubscribeEvent
+    public void onRightClickBlock(PlayerInteractEvent.RightClickBlock event)
+    {
+        if (!event.getWorld().isRemote)
+            LootGenerationHandler.materialize((WorldServer) event.getWorld(), event.getWorld().getTileEntity(event.getPos()));
+    }
+
+    @SubscribeEvent
+    public void onBlockBreak(BlockEvent.BreakEvent event)
+    {
+        if (!event.getWorld().isRemote)
+            LootGenerationHandler.materialize((WorldServer) event.getWorld(), event.getWorld().getTileEntity(event.getPos()));
+    }
+
+    @SideOnly(Side.CLIENT)
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event)
+    {
+        if (event.getWorld().isRemote)
+            PreviewMeshCache.clear();
+    }
+
     @SideOnly(Side.CLIENT)
     @SubscribeEvent
     public void onDrawWorld(RenderWorldLastEvent event)
@@ -183,6 +212,13 @@ public class RCForgeEventHandler
         if ((event.type == TickEvent.Type.CLIENT || event.type == TickEvent.Type.SERVER) && event.phase == TickEvent.Phase.END)
         {
             RecurrentComplex.communicationHandler.handleMessages(event.type == TickEvent.Type.SERVER, true);
+
+            if (event.type == TickEvent.Type.SERVER)
+            {
+                RCWorldgenMetrics.tick();
+                WorldRetrogenData.tick();
+                WorldGenStructures.decorateDeferred();
+            }
         }
     }
 
@@ -30,6 +30,9 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
 
     private Map<Class<? extends Module<SimpleLeveledRegistry<S>>>, Module<SimpleLeveledRegistry<S>>> modules = new HashMap<>();
 
+    private int batchDepth;
+    private boolean batchInvalidated;
+
     public SimpleLeveledRegistry(String description)
     {
         this.description = description;
@@ -140,7 +143,7 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
 
         RecurrentComplex.logger.trace(String.format(old != null ? "Replaced %s '%s' at level %s" : "Registered %s '%s' at level %s", description, id, level));
 
-        invalidateCaches();
+        invalidateCaches(id);
 
         return old;
     }
@@ -149,9 +152,10 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
     public S unregister(String id, ILevel level)
     {
         invalidateActiveCache();
-        invalidateCaches();
         stati.remove(id, level.getLevel());
-        return items.remove(id, level.getLevel());
+        S old = items.remove(id, level.getLevel());
+        invalidateCaches(id);
+        return old;
     }
 
     @Override
@@ -161,6 +165,7 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
         invalidateActiveCache();
         items.clear(level.getLevel());
         stati.clear(level.getLevel());
+        invalidateCaches();
     }
 
     private void ensureActiveCache()
@@ -197,11 +202,48 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
         return (T) modules.get(cache);
     }
 
+    @Override
+    public void beginBatch()
+    {
+        batchDepth++;
+    }
+
+    @Override
+    public void endBatch()
+    {
+        if (--batchDepth == 0 && batchInvalidated)
+        {
+            batchInvalidated = false;
+            invalidateCaches();
+        }
+    }
+
     protected void invalidateCaches()
     {
+        if (batchDepth > 0)
+        {
+            batchInvalidated = true;
+            return;
+        }
+
         modules.values().forEach(Module::invalidate);
     }
 
+    /**
+     * Invalidates caches after only the given ID's registration changed.
+     */
+    protected void invalidateCaches(String id)
+    {
+        if (batchDepth > 0)
+        {
+            // Invalidating everything once is cheaper than updating for every single ID
+            batchInvalidated = true;
+            return;
+        }
+
+        modules.values().forEach(m -> m.invalidate(id));
+    }
+
     public static abstract class Module<R extends SimpleLeveledRegistry>
     {
         protected R registry;
@@ -212,6 +254,15 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
         }
 
         public abstract void invalidate();
+
+        /**
+         * Called when only the given ID's registration changed. Modules that can update incrementally override this;
+         * by default everything is invalidated.
+         */
+        public void invalidate(String id)
+        {
+            invalidate();
+        }
     }
 
     public class Status implements LeveledRegistry.Status
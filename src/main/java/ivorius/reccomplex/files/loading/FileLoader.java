@@ -5,6 +5,7 @@
 
 package ivorius.reccomplex.files.loading;
 
+import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.files.FileHandler;
 import ivorius.reccomplex.files.RCFiles;
@@ -14,16 +15,19 @@ import org.apache.commons.io.FilenameUtils;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.nio.file.Path;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by lukas on 18.09.15.
  */
 public class FileLoader extends FileHandler
 {
+    private static final AtomicInteger threadIndex = new AtomicInteger();
+    private static ExecutorService executor;
+    private static int executorThreads;
+
     private final Map<String, FileLoaderAdapter> adapters = new HashMap<>();
 
     protected static String defaultName(Path path, String customID)
@@ -31,6 +35,32 @@ public class FileLoader extends FileHandler
         return customID != null ? customID : FilenameUtils.getBaseName(path.getFileName().toString());
     }
 
+    @Nullable
+    protected static synchronized ExecutorService executor()
+    {
+        int threads = RCConfig.fileLoadingThreads > 0 ? RCConfig.fileLoadingThreads : Runtime.getRuntime().availableProcessors();
+        if (threads <= 1)
+            return null;
+
+        if (executor == null || executorThreads != threads)
+        {
+            if (executor != null)
+                executor.shutdown();
+
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            executor = Executors.newFixedThreadPool(threads, runnable ->
+            {
+                Thread thread = new Thread(runnable, "ReC File Loader #" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            });
+            executorThreads = threads;
+        }
+
+        return executor;
+    }
+
     public FileLoaderAdapter get(String suffix)
     {
         return adapters.get(suffix);
@@ -73,6 +103,19 @@ public class FileLoader extends FileHandler
 
     // --------------- Loading
 
+    /**
+     * Defers the registries' cache updates until {@link #endBatch()}, so that loading many files invalidates them only once.
+     */
+    public void beginBatch()
+    {
+        adapters.values().forEach(FileLoaderAdapter::beginBatch);
+    }
+
+    public void endBatch()
+    {
+        adapters.values().forEach(FileLoaderAdapter::endBatch);
+    }
+
     @ParametersAreNonnullByDefault
     public int tryLoadAll(ResourceLocation resourceLocation, FileLoadContext context)
     {
@@ -95,16 +138,79 @@ public class FileLoader extends FileHandler
     @ParametersAreNonnullByDefault
     public int tryLoadAll(Path path, FileLoadContext context, Collection<String> suffices)
     {
-        int[] added = new int[1];
+        List<Path> files = RCFiles.listFilesRecursively(path, new FileSuffixFilter(suffices), true);
+        ExecutorService executor = executor();
+
+        // Read in parallel where possible, but finish in file order so that overrides stay deterministic
+        List<Future<Callable<Boolean>>> prepared = new ArrayList<>(files.size());
+        for (Path file : files)
+        {
+            FileLoaderAdapter handler = get(RCFiles.extension(file));
+            if (executor != null && handler != null && handler.canPrepareConcurrently())
+                prepared.add(executor.submit(() -> tryPrepare(handler, file, context)));
+            else
+                prepared.add(CompletableFuture.<Callable<Boolean>>completedFuture(() -> tryLoad(file, null, context)));
+        }
 
-        RCFiles.walkFilesRecursively(path, new FileSuffixFilter(suffices), true,
-                file ->
+        beginBatch();
+        try
+        {
+            for (int i = 0; i < files.size(); i++)
+            {
+                Callable<Boolean> finish;
+                try
                 {
-                    tryLoad(file, null, context);
-                    added[0]++;
-                });
+                    finish = prepared.get(i).get();
+                }
+                catch (InterruptedException | ExecutionException e)
+                {
+                    RecurrentComplex.logger.error("Error loading resource: " + files.get(i), e);
+                    continue;
+                }
 
-        return added[0];
+                if (finish != null)
+                    tryFinish(finish, files.get(i));
+            }
+        }
+        finally
+        {
+            endBatch();
+        }
+
+        return files.size();
+    }
+
+    @Nullable
+    protected Callable<Boolean> tryPrepare(FileLoaderAdapter handler, Path path, FileLoadContext context)
+    {
+        try
+        {
+            return handler.prepareFile(path, defaultName(path, null), context);
+        }
+        catch (UnsupportedOperationException e)
+        {
+            RecurrentComplex.logger.error(String.format("Reading unsupported: ?.%s", RCFiles.extension(path)), e);
+        }
+        catch (Exception e)
+        {
+            RecurrentComplex.logger.error("Error loading resource: " + path, e);
+        }
+
+        return null;
+    }
+
+    protected boolean tryFinish(Callable<Boolean> finish, Path path)
+    {
+        try
+        {
+            return finish.call();
+        }
+        catch (Exception e)
+        {
+            RecurrentComplex.logger.error("Error loading resource: " + path, e);
+        }
+
+        return false;
     }
 
     @ParametersAreNonnullByDefault
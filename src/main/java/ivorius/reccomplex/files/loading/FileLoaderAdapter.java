@@ -7,6 +7,7 @@ package ivorius.reccomplex.files.loading;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.nio.file.Path;
+import java.util.concurrent.Callable;
 
 /**
  * Created by lukas on 18.09.15.
@@ -33,6 +34,35 @@ public abstract class FileLoaderAdapter
     @ParametersAreNonnullByDefault
     protected abstract boolean loadFile(Path path, String id, FileLoadContext context) throws Exception;
 
+    /**
+     * @return Whether {@link #prepareFile(Path, String, FileLoadContext)} may be called from worker threads.
+     */
+    public boolean canPrepareConcurrently()
+    {
+        return false;
+    }
+
+    /**
+     * Does the part of loading that doesn't change any shared state, like reading and parsing the file.
+     *
+     * @return Finishes loading the file; always called on the loading thread, in file order.
+     */
+    @ParametersAreNonnullByDefault
+    protected Callable<Boolean> prepareFile(Path path, String id, FileLoadContext context) throws Exception
+    {
+        return () -> loadFile(path, id, context);
+    }
+
+    public void beginBatch()
+    {
+
+    }
+
+    public void endBatch()
+    {
+
+    }
+
     @ParametersAreNonnullByDefault
     abstract void clearFiles(LeveledRegistry.Level level);
 }
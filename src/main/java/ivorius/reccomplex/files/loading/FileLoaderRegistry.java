@@ -10,8 +10,10 @@ import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.events.FileLoadEvent;
 import ivorius.reccomplex.events.RCEventBus;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.nio.file.Path;
+import java.util.concurrent.Callable;
 
 /**
  * Created by lukas on 29.09.16.
@@ -30,20 +32,37 @@ public abstract class FileLoaderRegistry<S> extends FileLoaderAdapter
     @ParametersAreNonnullByDefault
     public boolean loadFile(Path path, String id, FileLoadContext context)
     {
-        String domain = context.domain;
-        boolean active = context.active;
+        return register(tryRead(path, id), path, id, context);
+    }
 
-        S s = null;
+    @Override
+    @ParametersAreNonnullByDefault
+    protected Callable<Boolean> prepareFile(Path path, String id, FileLoadContext context)
+    {
+        S s = tryRead(path, id);
+        return () -> register(s, path, id, context);
+    }
 
+    @Nullable
+    protected S tryRead(Path path, String id)
+    {
         try
         {
-            s = read(path, id);
+            return read(path, id);
         }
         catch (Exception e)
         {
             RecurrentComplex.logger.error("Error reading file: " + path, e);
         }
 
+        return null;
+    }
+
+    protected boolean register(@Nullable S s, Path path, String id, FileLoadContext context)
+    {
+        String domain = context.domain;
+        boolean active = context.active;
+
         if (s != null)
         {
             FileLoadEvent.Pre<S> event = new FileLoadEvent.Pre<>(s, suffix, id, domain, path, active);
@@ -64,6 +83,18 @@ public abstract class FileLoaderRegistry<S> extends FileLoaderAdapter
 
     public abstract S read(Path path, String name) throws Exception;
 
+    @Override
+    public void beginBatch()
+    {
+        registry.beginBatch();
+    }
+
+    @Override
+    public void endBatch()
+    {
+        registry.endBatch();
+    }
+
     @Override
     @ParametersAreNonnullByDefault
     public void clearFiles(LeveledRegistry.Level level)
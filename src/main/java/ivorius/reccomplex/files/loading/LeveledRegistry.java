@@ -26,6 +26,19 @@ public interface LeveledRegistry<S>
 
     void clear(ILevel level);
 
+    /**
+     * Starts a batch of changes. Until the matching {@link #endBatch()}, registries may defer updating their caches.
+     */
+    default void beginBatch()
+    {
+
+    }
+
+    default void endBatch()
+    {
+
+    }
+
     interface ILevel
     {
         int getLevel();
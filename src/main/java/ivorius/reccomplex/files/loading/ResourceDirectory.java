@@ -81,6 +81,19 @@ public enum ResourceDirectory
     }
 
     public static void reload(@Nonnull FileLoader loader, @Nonnull LeveledRegistry.Level level) throws IllegalArgumentException, NoServerException, RCFiles.ResourceLocationLoadException
+    {
+        loader.beginBatch();
+        try
+        {
+            reloadBatched(loader, level);
+        }
+        finally
+        {
+            loader.endBatch();
+        }
+    }
+
+    protected static void reloadBatched(@Nonnull FileLoader loader, @Nonnull LeveledRegistry.Level level) throws IllegalArgumentException, NoServerException, RCFiles.ResourceLocationLoadException
     {
         switch (level)
         {
@@ -40,7 +40,7 @@ public class PacketEditStructureHandler extends SchedulingMessageHandler<PacketE
         RCEntityInfo entityInfo = RCEntityInfo.get(player, null);
 
         if (entityInfo != null)
-            entityInfo.setCachedExportStructureBlockDataNBT(structure.worldDataCompound);
+            entityInfo.setCachedExportStructureBlockDataNBT(structure.worldData());
 
         if (directory == null)
         {
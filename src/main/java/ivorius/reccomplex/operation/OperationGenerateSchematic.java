@@ -11,8 +11,8 @@ import ivorius.reccomplex.utils.RCAxisAlignedTransform;
 import ivorius.reccomplex.world.gen.feature.structure.schematics.SchematicFile;
 import net.minecraft.util.math.BlockPos;
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
-import ivorius.ivtoolkit.rendering.grid.GridQuadCache;
 import ivorius.reccomplex.client.rendering.OperationRenderer;
+import ivorius.reccomplex.client.rendering.PreviewMeshCache;
 import ivorius.reccomplex.client.rendering.SchematicQuadCache;
 import ivorius.reccomplex.operation.Operation;
 import net.minecraft.nbt.NBTTagCompound;
@@ -22,6 +22,8 @@ import net.minecraft.world.WorldServer;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import java.util.Arrays;
+
 /**
  * Created by lukas on 10.02.15.
  */
@@ -32,7 +34,7 @@ public class OperationGenerateSchematic implements Operation
     public AxisAlignedTransform2D transform;
     public BlockPos lowerCoord;
 
-    protected GridQuadCache cachedShapeGrid;
+    protected Object cachedPreviewKey;
 
     public OperationGenerateSchematic()
     {
@@ -84,7 +86,7 @@ public class OperationGenerateSchematic implements Operation
 
     public void invalidateCache()
     {
-        cachedShapeGrid = null;
+        cachedPreviewKey = null;
     }
 
     @SideOnly(Side.CLIENT)
@@ -97,9 +99,12 @@ public class OperationGenerateSchematic implements Operation
             if (previewType == PreviewType.SHAPE)
             {
                 GlStateManager.color(0.8f, 0.75f, 1.0f);
-                OperationRenderer.renderGridQuadCache(
-                        cachedShapeGrid != null ? cachedShapeGrid : (cachedShapeGrid = SchematicQuadCache.createQuadCache(file, new float[]{1, 1, 1})),
-                        transform, lowerCoord, ticks, partialTicks);
+                SchematicFile file = this.file;
+                if (cachedPreviewKey == null)
+                    cachedPreviewKey = Arrays.asList("schematic", file.width, file.height, file.length, Arrays.hashCode(file.blockStates));
+
+                PreviewMeshCache.get(cachedPreviewKey, () -> SchematicQuadCache.createQuadCache(file, new float[]{1, 1, 1}))
+                        .draw(transform, lowerCoord, ticks, partialTicks);
             }
 
             if (previewType == PreviewType.BOUNDING_BOX || previewType == PreviewType.SHAPE)
@@ -5,13 +5,14 @@
 
 package ivorius.reccomplex.operation;
 
+import com.google.common.base.Equivalence;
 import ivorius.ivtoolkit.blocks.BlockArea;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
 import ivorius.ivtoolkit.rendering.grid.BlockQuadCache;
-import ivorius.ivtoolkit.rendering.grid.GridQuadCache;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.client.rendering.OperationRenderer;
+import ivorius.reccomplex.client.rendering.PreviewMeshCache;
 import ivorius.reccomplex.utils.RCAxisAlignedTransform;
 import ivorius.reccomplex.utils.RCStrings;
 import ivorius.reccomplex.world.gen.feature.StructureGenerator;
@@ -30,6 +31,7 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
@@ -47,7 +49,10 @@ public class OperationGenerateStructure implements Operation
     public String structureID;
     public String generationInfoID;
 
-    protected GridQuadCache cachedShapeGrid;
+    protected Object cachedPreviewKey;
+    // Hash of the world data as it was read, so previews don't need to inflate and hash it again
+    @Nullable
+    protected Integer worldDataHash;
 
     protected String seed;
 
@@ -153,7 +158,7 @@ public class OperationGenerateStructure implements Operation
     public void writeToNBT(NBTTagCompound compound)
     {
         compound.setString("structureInfo", StructureSaveHandler.INSTANCE.toJSON(structure));
-        compound.setTag("structureData", structure.worldDataCompound);
+        compound.setTag("structureData", structure.worldData());
 
         RCAxisAlignedTransform.write(compound, transform, "rotation", "mirrorX");
 
@@ -173,8 +178,9 @@ public class OperationGenerateStructure implements Operation
     @Override
     public void readFromNBT(NBTTagCompound compound)
     {
-        structure = StructureSaveHandler.INSTANCE.fromJSON(compound.getString("structureInfo"),
-                compound.getCompoundTag("structureData"));
+        NBTTagCompound worldData = compound.getCompoundTag("structureData");
+        structure = StructureSaveHandler.INSTANCE.fromJSON(compound.getString("structureInfo"), worldData);
+        worldDataHash = worldData.hashCode();
 
         transform = RCAxisAlignedTransform.read(compound, "rotation", "mirrorX");
 
@@ -193,7 +199,7 @@ public class OperationGenerateStructure implements Operation
 
     public void invalidateCache()
     {
-        cachedShapeGrid = null;
+        cachedPreviewKey = null;
     }
 
 //    float partial = 0;
@@ -229,9 +235,16 @@ public class OperationGenerateStructure implements Operation
         if (previewType == PreviewType.SHAPE)
         {
             GlStateManager.color(0.8f, 0.75f, 1.0f);
-            OperationRenderer.renderGridQuadCache(
-                    cachedShapeGrid != null ? cachedShapeGrid : (cachedShapeGrid = BlockQuadCache.createQuadCache(structure.constructWorldData().blockCollection, new float[]{1, 1, 1})),
-                    transform, lowerCoord, ticks, partialTicks);
+            GenericStructure structure = this.structure;
+            if (cachedPreviewKey == null)
+            {
+                // Not read from NBT, so only the same world data object is known to be the same
+                Object worldDataKey = worldDataHash != null ? worldDataHash : Equivalence.identity().wrap(structure.worldDataIdentity());
+                cachedPreviewKey = Arrays.asList("structure", structureID, worldDataKey);
+            }
+
+            PreviewMeshCache.get(cachedPreviewKey, () -> BlockQuadCache.createQuadCache(structure.constructWorldData().blockCollection, new float[]{1, 1, 1}))
+                    .draw(transform, lowerCoord, ticks, partialTicks);
         }
 
         if (previewType == PreviewType.BOUNDING_BOX || previewType == PreviewType.SHAPE)
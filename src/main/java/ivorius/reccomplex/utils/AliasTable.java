@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Weighted random selection in constant time, using Vose's alias method.
+ * Building the table is linear in the number of items; it is immutable afterwards.
+ */
+public class AliasTable<T>
+{
+    protected final Object[] items;
+    protected final double[] probabilities;
+    protected final int[] aliases;
+
+    protected final double totalWeight;
+
+    public AliasTable(@Nonnull List<? extends T> items, @Nonnull ToDoubleFunction<? super T> weightFunction)
+    {
+        this(items, items.stream().mapToDouble(weightFunction).toArray());
+    }
+
+    public AliasTable(@Nonnull List<? extends T> items, @Nonnull double[] weights)
+    {
+        if (items.size() != weights.length)
+            throw new IllegalArgumentException("Item and weight count differ");
+
+        int size = items.size();
+        this.items = items.toArray();
+        probabilities = new double[size];
+        aliases = new int[size];
+
+        double totalWeight = 0;
+        weights = weights.clone();
+        for (int i = 0; i < size; i++)
+            totalWeight += (weights[i] = Math.max(0, weights[i]));
+        this.totalWeight = totalWeight;
+
+        if (size == 0 || totalWeight <= 0)
+            return;
+
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0, largeCount = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            weights[i] = weights[i] * size / totalWeight;
+            if (weights[i] < 1)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+
+        while (smallCount > 0 && largeCount > 0)
+        {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probabilities[less] = weights[less];
+            aliases[less] = more;
+
+            weights[more] = (weights[more] + weights[less]) - 1;
+            if (weights[more] < 1)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+
+        // Whatever remains is 1 up to numerical error
+        while (largeCount > 0)
+            probabilities[large[--largeCount]] = 1;
+        while (smallCount > 0)
+            probabilities[small[--smallCount]] = 1;
+    }
+
+    public int size()
+    {
+        return items.length;
+    }
+
+    public double totalWeight()
+    {
+        return totalWeight;
+    }
+
+    @Nullable
+    public T select(@Nonnull Random random)
+    {
+        if (items.length == 0 || totalWeight <= 0)
+            return null;
+
+        int column = random.nextInt(items.length);
+        //noinspection unchecked
+        return (T) items[random.nextDouble() < probabilities[column] ? column : aliases[column]];
+    }
+}
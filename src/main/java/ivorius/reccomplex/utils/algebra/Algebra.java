@@ -610,6 +610,24 @@ public class Algebra<T>
         }
 
         public abstract <V> T evaluate(Function<V, T> variableEvaluator, Expression<T, V>[] expressions);
+
+        /**
+         * @return The operator fused over its compiled arguments, or null if it doesn't support compilation.
+         */
+        @Nullable
+        public <A> AlgebraCompiler.Bool<A> compileBool(AlgebraCompiler.Bool<A>[] arguments)
+        {
+            return null;
+        }
+
+        /**
+         * @return The operator fused over its compiled arguments, or null if it doesn't support compilation.
+         */
+        @Nullable
+        public <A> AlgebraCompiler.Int<A> compileInt(AlgebraCompiler.Int<A>[] arguments)
+        {
+            return null;
+        }
     }
 
     protected static class ExpressionToken<T> extends SymbolTokenizer.Token
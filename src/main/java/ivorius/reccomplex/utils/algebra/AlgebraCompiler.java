@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.algebra;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Fuses parsed expressions into a chain of closures, so that evaluating them doesn't walk the tree, look up
+ * operators or box intermediate results. Constant sub-expressions are folded and the cheaper side of
+ * commutative short-circuit operators is evaluated first.
+ * <p>
+ * Operators opt in by implementing {@link Algebra.Operator#compileBool(Bool[])} or {@link Algebra.Operator#compileInt(Int[])};
+ * expressions containing any other operator can't be compiled.
+ */
+public class AlgebraCompiler
+{
+    /**
+     * @return The compiled expression, or null if some operator doesn't support compilation.
+     */
+    @Nullable
+    public static <V, A> Bool<A> compileBool(@Nonnull Algebra.Expression<Boolean, V> expression, @Nonnull Function<? super Algebra.Variable<Boolean, V>, Bool<A>> variableCompiler)
+    {
+        if (expression instanceof Algebra.Constant)
+        {
+            Boolean value = ((Algebra.Constant<Boolean, V>) expression).value;
+            return value != null ? Bool.constant(value) : null;
+        }
+        else if (expression instanceof Algebra.Variable)
+            return variableCompiler.apply((Algebra.Variable<Boolean, V>) expression);
+        else if (expression instanceof Algebra.Operation)
+        {
+            Algebra.Operation<Boolean, V> operation = (Algebra.Operation<Boolean, V>) expression;
+
+            @SuppressWarnings("unchecked") Bool<A>[] arguments = new Bool[operation.expressions.length];
+            for (int i = 0; i < arguments.length; i++)
+                if ((arguments[i] = compileBool(operation.expressions[i], variableCompiler)) == null)
+                    return null;
+
+            return operation.operator.compileBool(arguments);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The compiled expression, or null if some operator doesn't support compilation.
+     */
+    @Nullable
+    public static <V, A> Int<A> compileInt(@Nonnull Algebra.Expression<Integer, V> expression, @Nonnull Function<? super Algebra.Variable<Integer, V>, Int<A>> variableCompiler)
+    {
+        if (expression instanceof Algebra.Constant)
+        {
+            Integer value = ((Algebra.Constant<Integer, V>) expression).value;
+            return value != null ? Int.constant(value) : null;
+        }
+        else if (expression instanceof Algebra.Variable)
+            return variableCompiler.apply((Algebra.Variable<Integer, V>) expression);
+        else if (expression instanceof Algebra.Operation)
+        {
+            Algebra.Operation<Integer, V> operation = (Algebra.Operation<Integer, V>) expression;
+
+            @SuppressWarnings("unchecked") Int<A>[] arguments = new Int[operation.expressions.length];
+            for (int i = 0; i < arguments.length; i++)
+                if ((arguments[i] = compileInt(operation.expressions[i], variableCompiler)) == null)
+                    return null;
+
+            return operation.operator.compileInt(arguments);
+        }
+
+        return null;
+    }
+
+    public static final class Bool<A>
+    {
+        @Nonnull
+        public final Predicate<A> predicate;
+        public final boolean isConstant;
+        /**
+         * Rough number of variable lookups needed to evaluate, used to order short circuits.
+         */
+        public final int cost;
+
+        private Bool(@Nonnull Predicate<A> predicate, boolean isConstant, int cost)
+        {
+            this.predicate = predicate;
+            this.isConstant = isConstant;
+            this.cost = cost;
+        }
+
+        public static <A> Bool<A> constant(boolean value)
+        {
+            return new Bool<>(value ? a -> true : a -> false, true, 0);
+        }
+
+        public static <A> Bool<A> of(@Nonnull Predicate<A> predicate, int cost)
+        {
+            return new Bool<>(predicate, false, cost);
+        }
+
+        public boolean constantValue()
+        {
+            if (!isConstant)
+                throw new IllegalStateException();
+            return predicate.test(null);
+        }
+
+        public boolean isConstant(boolean value)
+        {
+            return isConstant && constantValue() == value;
+        }
+    }
+
+    public static final class Int<A>
+    {
+        @Nonnull
+        public final ToIntFunction<A> function;
+        public final boolean isConstant;
+        public final int cost;
+
+        private Int(@Nonnull ToIntFunction<A> function, boolean isConstant, int cost)
+        {
+            this.function = function;
+            this.isConstant = isConstant;
+            this.cost = cost;
+        }
+
+        public static <A> Int<A> constant(int value)
+        {
+            return new Int<>(a -> value, true, 0);
+        }
+
+        public static <A> Int<A> of(@Nonnull ToIntFunction<A> function, int cost)
+        {
+            return new Int<>(function, false, cost);
+        }
+
+        public int constantValue()
+        {
+            if (!isConstant)
+                throw new IllegalStateException();
+            return function.applyAsInt(null);
+        }
+    }
+}
@@ -46,6 +46,18 @@ public class Algebras
         {
             return expressions[0].evaluate(variableEvaluator);
         }
+
+        @Override
+        public <A> AlgebraCompiler.Bool<A> compileBool(AlgebraCompiler.Bool<A>[] arguments)
+        {
+            return arguments[0];
+        }
+
+        @Override
+        public <A> AlgebraCompiler.Int<A> compileInt(AlgebraCompiler.Int<A>[] arguments)
+        {
+            return arguments[0];
+        }
     }
 
     public static abstract class Unary<T> extends Algebra.Operator<T>
@@ -63,6 +75,18 @@ public class Algebras
 
         public abstract <V> T evaluate(Function<V, T> variableEvaluator, Algebra.Expression<T, V> expression);
 
+        @Override
+        public <A> AlgebraCompiler.Bool<A> compileBool(AlgebraCompiler.Bool<A>[] arguments)
+        {
+            return compileBool(arguments[0]);
+        }
+
+        @Nullable
+        public <A> AlgebraCompiler.Bool<A> compileBool(AlgebraCompiler.Bool<A> argument)
+        {
+            return null;
+        }
+
         public enum Notation
         {
             PREFIX, POSTFIX
@@ -83,5 +107,29 @@ public class Algebras
         }
 
         public abstract <V> T evaluate(Function<V, T> variableEvaluator, Algebra.Expression<T, V> left, Algebra.Expression<T, V> right);
+
+        @Override
+        public <A> AlgebraCompiler.Bool<A> compileBool(AlgebraCompiler.Bool<A>[] arguments)
+        {
+            return compileBool(arguments[0], arguments[1]);
+        }
+
+        @Override
+        public <A> AlgebraCompiler.Int<A> compileInt(AlgebraCompiler.Int<A>[] arguments)
+        {
+            return compileInt(arguments[0], arguments[1]);
+        }
+
+        @Nullable
+        public <A> AlgebraCompiler.Bool<A> compileBool(AlgebraCompiler.Bool<A> left, AlgebraCompiler.Bool<A> right)
+        {
+            return null;
+        }
+
+        @Nullable
+        public <A> AlgebraCompiler.Int<A> compileInt(AlgebraCompiler.Int<A> left, AlgebraCompiler.Int<A> right)
+        {
+            return null;
+        }
     }
 }
@@ -5,7 +5,10 @@
 
 package ivorius.reccomplex.utils.algebra;
 
+import ivorius.reccomplex.utils.algebra.AlgebraCompiler.Bool;
+
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Created by lukas on 23.02.15.
@@ -23,6 +26,16 @@ public abstract class BoolAlgebra
             {
                 return !expression.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Bool<A> compileBool(Bool<A> argument)
+            {
+                if (argument.isConstant)
+                    return Bool.constant(!argument.constantValue());
+
+                Predicate<A> predicate = argument.predicate;
+                return Bool.of(a -> !predicate.test(a), argument.cost);
+            }
         };
     }
 
@@ -35,6 +48,22 @@ public abstract class BoolAlgebra
             {
                 return left.evaluate(variableEvaluator) && right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Bool<A> compileBool(Bool<A> left, Bool<A> right)
+            {
+                if (left.isConstant(false) || right.isConstant(false))
+                    return Bool.constant(false);
+                if (left.isConstant)
+                    return right;
+                if (right.isConstant)
+                    return left;
+
+                // Evaluation is side-effect free, so check the cheaper one first
+                Predicate<A> first = (left.cost <= right.cost ? left : right).predicate;
+                Predicate<A> second = (left.cost <= right.cost ? right : left).predicate;
+                return Bool.of(a -> first.test(a) && second.test(a), left.cost + right.cost);
+            }
         };
     }
 
@@ -47,6 +76,21 @@ public abstract class BoolAlgebra
             {
                 return left.evaluate(variableEvaluator) || right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Bool<A> compileBool(Bool<A> left, Bool<A> right)
+            {
+                if (left.isConstant(true) || right.isConstant(true))
+                    return Bool.constant(true);
+                if (left.isConstant)
+                    return right;
+                if (right.isConstant)
+                    return left;
+
+                Predicate<A> first = (left.cost <= right.cost ? left : right).predicate;
+                Predicate<A> second = (left.cost <= right.cost ? right : left).predicate;
+                return Bool.of(a -> first.test(a) || second.test(a), left.cost + right.cost);
+            }
         };
     }
 
@@ -59,6 +103,16 @@ public abstract class BoolAlgebra
             {
                 return left.evaluate(variableEvaluator) == right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Bool<A> compileBool(Bool<A> left, Bool<A> right)
+            {
+                if (left.isConstant && right.isConstant)
+                    return Bool.constant(left.constantValue() == right.constantValue());
+
+                Predicate<A> l = left.predicate, r = right.predicate;
+                return Bool.of(a -> l.test(a) == r.test(a), left.cost + right.cost);
+            }
         };
     }
 
@@ -69,7 +123,17 @@ public abstract class BoolAlgebra
             @Override
             public <V> Boolean evaluate(Function<V, Boolean> variableEvaluator, Algebra.Expression<Boolean, V> left, Algebra.Expression<Boolean, V> right)
             {
-                return left.evaluate(variableEvaluator) == right.evaluate(variableEvaluator);
+                return left.evaluate(variableEvaluator) != right.evaluate(variableEvaluator);
+            }
+
+            @Override
+            public <A> Bool<A> compileBool(Bool<A> left, Bool<A> right)
+            {
+                if (left.isConstant && right.isConstant)
+                    return Bool.constant(left.constantValue() != right.constantValue());
+
+                Predicate<A> l = left.predicate, r = right.predicate;
+                return Bool.of(a -> l.test(a) != r.test(a), left.cost + right.cost);
             }
         };
     }
@@ -85,6 +149,18 @@ public abstract class BoolAlgebra
                         ? expressions[1].evaluate(variableEvaluator)
                         : expressions[2].evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Bool<A> compileBool(Bool<A>[] arguments)
+            {
+                Bool<A> condition = arguments[0], ifTrue = arguments[1], ifFalse = arguments[2];
+
+                if (condition.isConstant)
+                    return condition.constantValue() ? ifTrue : ifFalse;
+
+                Predicate<A> c = condition.predicate, t = ifTrue.predicate, f = ifFalse.predicate;
+                return Bool.of(a -> c.test(a) ? t.test(a) : f.test(a), condition.cost + Math.max(ifTrue.cost, ifFalse.cost));
+            }
         };
     }
 
@@ -7,10 +7,13 @@ package ivorius.reccomplex.utils.algebra;
 
 import ivorius.reccomplex.RCConfig;
 
+import javax.annotation.Nullable;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
+ * Compiles expressions through {@link AlgebraCompiler#compileBool}.
+ * <p>
  * Created by lukas on 05.10.16.
  */
 public class BoolFunctionExpressionCache<A, U> extends FunctionExpressionCache<Boolean, A, U> implements Predicate<A>
@@ -44,6 +47,28 @@ public class BoolFunctionExpressionCache<A, U> extends FunctionExpressionCache<B
         return evaluate(a);
     }
 
+    @Override
+    @Nullable
+    protected Function<SupplierCache<A>, Boolean> compile()
+    {
+        @SuppressWarnings("unchecked") Algebra.Expression<Boolean, Function<SupplierCache<A>, Boolean>> expression = (Algebra.Expression<Boolean, Function<SupplierCache<A>, Boolean>>) parsedExpression;
+        AlgebraCompiler.Bool<SupplierCache<A>> compiled = AlgebraCompiler.compileBool(expression, variable ->
+        {
+            VariableType<Boolean, ? super A, ? super U> type = type(variable.identifier);
+            if (type instanceof FunctionExpressionCaches.ConstantType)
+                return AlgebraCompiler.Bool.constant(((FunctionExpressionCaches.ConstantType<Boolean>) type).value);
+
+            Function<SupplierCache<A>, Boolean> function = variable.value;
+            return AlgebraCompiler.Bool.of(function::apply, 1);
+        });
+
+        if (compiled == null)
+            return null;
+
+        Predicate<SupplierCache<A>> predicate = compiled.predicate;
+        return a -> predicate.test(a); // Boolean.valueOf, doesn't allocate
+    }
+
     public static class VariableTypeGlobal extends VariableType<Boolean, Object, Object>
     {
         public VariableTypeGlobal(String prefix, String suffix)
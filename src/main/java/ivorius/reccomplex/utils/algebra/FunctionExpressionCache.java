@@ -22,6 +22,10 @@ public class FunctionExpressionCache<T, A, U> extends ExpressionCache<T>
 {
     protected final SortedSet<VariableType<T, ? super A, ? super U>> types = new TreeSet<>();
 
+    // null if not yet compiled, empty if not compilable
+    @Nullable
+    protected volatile Optional<Function<SupplierCache<A>, T>> compiled;
+
     public FunctionExpressionCache(Algebra<T> algebra)
     {
         super(algebra);
@@ -103,8 +107,37 @@ public class FunctionExpressionCache<T, A, U> extends ExpressionCache<T>
         };
     }
 
+    @Override
+    protected void parseExpression()
+    {
+        super.parseExpression();
+        compiled = null;
+    }
+
+    /**
+     * @return The expression compiled for faster evaluation, or null if it can't be compiled.
+     */
+    @Nullable
+    protected Function<SupplierCache<A>, T> compile()
+    {
+        return null;
+    }
+
+    @Nullable
+    protected Function<SupplierCache<A>, T> compiled()
+    {
+        Optional<Function<SupplierCache<A>, T>> compiled = this.compiled;
+        if (compiled == null)
+            this.compiled = compiled = Optional.ofNullable(parsedExpression != null ? compile() : null);
+        return compiled.orElse(null);
+    }
+
     public T evaluate(final SupplierCache<A> a)
     {
+        Function<SupplierCache<A>, T> compiled = compiled();
+        if (compiled != null)
+            return compiled.apply(a);
+
         @SuppressWarnings("unchecked") Algebra.Expression<T, Function<SupplierCache<? super A>, T>> expression = (Algebra.Expression<T, Function<SupplierCache<? super A>, T>>) this.parsedExpression;
         return parsedExpression != null ? expression.evaluate(fun -> fun.apply(a)) : emptyExpressionResult;
     }
@@ -33,22 +33,9 @@ public class FunctionExpressionCaches
         };
     }
 
-    public static <T> FunctionExpressionCache.VariableType<T, Object, Object> constant(String id, T val)
+    public static <T> ConstantType<T> constant(String id, T val)
     {
-        return new FunctionExpressionCache.VariableType<T, Object, Object>(id, "")
-        {
-            @Override
-            public Function<SupplierCache<Object>, T> parse(String var)
-            {
-                return o -> val;
-            }
-
-            @Override
-            public FunctionExpressionCache.Validity validity(String var, Object o)
-            {
-                return var.equals(prefix) ? FunctionExpressionCache.Validity.KNOWN : FunctionExpressionCache.Validity.ERROR;
-            }
-        };
+        return new ConstantType<>(id, val);
     }
 
     public static String readableException(ExpressionCache<?> expressionCache)
@@ -57,4 +44,27 @@ public class FunctionExpressionCaches
         return String.format("%s%s%s: at %d", TextFormatting.RED, parseException.getMessage(), TextFormatting.RESET,
                 parseException.getErrorOffset());
     }
+
+    public static class ConstantType<T> extends FunctionExpressionCache.VariableType<T, Object, Object>
+    {
+        public final T value;
+
+        public ConstantType(String id, T value)
+        {
+            super(id, "");
+            this.value = value;
+        }
+
+        @Override
+        public Function<SupplierCache<Object>, T> parse(String var)
+        {
+            return o -> value;
+        }
+
+        @Override
+        public FunctionExpressionCache.Validity validity(String var, Object o)
+        {
+            return var.equals(prefix) ? FunctionExpressionCache.Validity.KNOWN : FunctionExpressionCache.Validity.ERROR;
+        }
+    }
 }
@@ -5,7 +5,10 @@
 
 package ivorius.reccomplex.utils.algebra;
 
+import ivorius.reccomplex.utils.algebra.AlgebraCompiler.Int;
+
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Created by lukas on 26.06.16.
@@ -23,6 +26,16 @@ public class IntAlgebra
             {
                 return left.evaluate(variableEvaluator) + right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Int<A> compileInt(Int<A> left, Int<A> right)
+            {
+                if (left.isConstant && right.isConstant)
+                    return Int.constant(left.constantValue() + right.constantValue());
+
+                ToIntFunction<A> l = left.function, r = right.function;
+                return Int.of(a -> l.applyAsInt(a) + r.applyAsInt(a), left.cost + right.cost);
+            }
         };
     }
 
@@ -35,6 +48,16 @@ public class IntAlgebra
             {
                 return left.evaluate(variableEvaluator) - right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Int<A> compileInt(Int<A> left, Int<A> right)
+            {
+                if (left.isConstant && right.isConstant)
+                    return Int.constant(left.constantValue() - right.constantValue());
+
+                ToIntFunction<A> l = left.function, r = right.function;
+                return Int.of(a -> l.applyAsInt(a) - r.applyAsInt(a), left.cost + right.cost);
+            }
         };
     }
 
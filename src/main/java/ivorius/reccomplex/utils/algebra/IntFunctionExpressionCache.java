@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.algebra;
+
+import javax.annotation.Nullable;
+import java.text.ParseException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles expressions through {@link AlgebraCompiler#compileInt}. Numbers are parsed as constants.
+ */
+public class IntFunctionExpressionCache<A, U> extends FunctionExpressionCache<Integer, A, U> implements ToIntFunction<A>
+{
+    public IntFunctionExpressionCache(Algebra<Integer> algebra)
+    {
+        super(algebra);
+
+        addIntConstants();
+    }
+
+    public IntFunctionExpressionCache(Algebra<Integer> algebra, Integer emptyResult, String emptyResultRepresentation)
+    {
+        super(algebra, emptyResult, emptyResultRepresentation);
+
+        addIntConstants();
+    }
+
+    protected void addIntConstants()
+    {
+        addType(new VariableTypeNumber());
+    }
+
+    @Override
+    public int applyAsInt(A a)
+    {
+        SupplierCache<A> cache = SupplierCache.direct(a);
+        Function<SupplierCache<A>, Integer> compiled = compiled();
+        // Unboxed all the way if compiled
+        return compiled instanceof Compiled ? ((Compiled<A>) compiled).function.applyAsInt(cache) : evaluate(cache);
+    }
+
+    @Override
+    @Nullable
+    protected Function<SupplierCache<A>, Integer> compile()
+    {
+        @SuppressWarnings("unchecked") Algebra.Expression<Integer, Function<SupplierCache<A>, Integer>> expression = (Algebra.Expression<Integer, Function<SupplierCache<A>, Integer>>) parsedExpression;
+        AlgebraCompiler.Int<SupplierCache<A>> compiled = AlgebraCompiler.compileInt(expression, variable ->
+        {
+            VariableType<Integer, ? super A, ? super U> type = type(variable.identifier);
+            if (type instanceof FunctionExpressionCaches.ConstantType)
+                return AlgebraCompiler.Int.constant(((FunctionExpressionCaches.ConstantType<Integer>) type).value);
+            if (type instanceof VariableTypeNumber)
+                return AlgebraCompiler.Int.constant(Integer.parseInt(variable.identifier));
+
+            Function<SupplierCache<A>, Integer> function = variable.value;
+            return AlgebraCompiler.Int.of(function::apply, 1);
+        });
+
+        return compiled != null ? new Compiled<>(compiled.function) : null;
+    }
+
+    protected static class Compiled<A> implements Function<SupplierCache<A>, Integer>
+    {
+        public final ToIntFunction<SupplierCache<A>> function;
+
+        public Compiled(ToIntFunction<SupplierCache<A>> function)
+        {
+            this.function = function;
+        }
+
+        @Override
+        public Integer apply(SupplierCache<A> a)
+        {
+            return function.applyAsInt(a);
+        }
+    }
+
+    public static class VariableTypeNumber extends VariableType<Integer, Object, Object>
+    {
+        public VariableTypeNumber()
+        {
+            super("", "");
+        }
+
+        @Override
+        public Function<SupplierCache<Object>, Integer> parse(String var) throws ParseException
+        {
+            Integer value;
+            try
+            {
+                value = IntAlgebra.CONSTANT_EVALUATOR.apply(var);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new ParseException(String.format("'%s' is not a number", var), 0);
+            }
+
+            return o -> value;
+        }
+
+        @Override
+        public Validity validity(String var, Object o)
+        {
+            try
+            {
+                IntAlgebra.CONSTANT_EVALUATOR.apply(var);
+                return Validity.KNOWN;
+            }
+            catch (NumberFormatException e)
+            {
+                return Validity.ERROR;
+            }
+        }
+    }
+}
@@ -26,11 +26,17 @@ import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.event.FMLInterModComms;
 import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
+ * Block states are matched through a bit table over {@link Block#BLOCK_STATE_IDS} that is compiled on first use,
+ * as long as the expression depends on nothing but the state.
+ * <p>
  * Created by lukas on 03.03.15.
  */
 public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Object>
@@ -40,8 +46,13 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
     public static final String METADATA_PREFIX = "metadata=";
     public static final String PROPERTY_PREFIX = "property[";
 
+    private static final AtomicInteger STATE_ID_GENERATION = new AtomicInteger();
+
     public final MCRegistry registry;
 
+    @Nullable
+    protected volatile StateTable stateTable;
+
     public BlockExpression(MCRegistry registry)
     {
         super(RCBoolAlgebra.algebra(), true, TextFormatting.GREEN + "Any Block");
@@ -54,6 +65,90 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
         addTypes(new PropertyVariableType(PROPERTY_PREFIX, ""), t -> t.alias("$[", ""));
     }
 
+    /**
+     * Throws away all state tables, e.g. when block state IDs were remapped.
+     */
+    public static void invalidateCompiled()
+    {
+        STATE_ID_GENERATION.incrementAndGet();
+    }
+
+    @Override
+    protected void parseExpression()
+    {
+        super.parseExpression();
+        stateTable = null;
+    }
+
+    @Override
+    public boolean test(IBlockState state)
+    {
+        StateTable table = stateTable();
+
+        if (table != null)
+        {
+            int id = Block.BLOCK_STATE_IDS.get(state);
+            if (id >= 0 && !table.ambiguous.get(id))
+                return table.matches.get(id);
+        }
+
+        return super.evaluate(state);
+    }
+
+    @Override
+    public Boolean evaluate(IBlockState state)
+    {
+        return test(state);
+    }
+
+    @Nullable
+    protected StateTable stateTable()
+    {
+        StateTable table = this.stateTable;
+        int generation = STATE_ID_GENERATION.get();
+
+        if (table == null || table.generation != generation)
+            this.stateTable = table = compileStateTable(generation);
+
+        return table.compilable ? table : null;
+    }
+
+    protected StateTable compileStateTable(int generation)
+    {
+        // Globals may be toggled at any time
+        if (parsedExpression == null || !parsedExpression.walkVariables(v -> !(type(v.identifier) instanceof VariableTypeGlobal)))
+            return new StateTable(generation, false);
+
+        StateTable table = new StateTable(generation, true);
+        BitSet seen = new BitSet();
+
+        for (Block block : Block.REGISTRY)
+        {
+            for (IBlockState state : block.getBlockState().getValidStates())
+            {
+                int id = Block.BLOCK_STATE_IDS.get(state);
+                if (id < 0)
+                    continue;
+
+                boolean matches = super.evaluate(state);
+
+                // Several states share one ID if they only differ in non-metadata properties
+                if (seen.get(id))
+                {
+                    if (table.matches.get(id) != matches)
+                        table.ambiguous.set(id);
+                }
+                else
+                {
+                    seen.set(id);
+                    table.matches.set(id, matches);
+                }
+            }
+        }
+
+        return table;
+    }
+
     public static String of(MCRegistry registry, Block block)
     {
         return registry.idFromBlock(block).toString();
@@ -237,4 +332,19 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
                     ? Validity.KNOWN : Validity.UNKNOWN;
         }
     }
+
+    protected static class StateTable
+    {
+        public final int generation;
+        public final boolean compilable;
+
+        public final BitSet matches = new BitSet();
+        public final BitSet ambiguous = new BitSet();
+
+        public StateTable(int generation, boolean compilable)
+        {
+            this.generation = generation;
+            this.compilable = compilable;
+        }
+    }
 }
@@ -11,14 +11,18 @@ import java.util.stream.Stream;
 // TODO Temp drop-in for an unreleased change to the IvToolkit API.
 public class RCChunks {
     public static IntStream repeatsInChunk(int chunkPos, int shift, int repeatLength) {
-        if (repeatLength == 0) {
+        if (repeatLength <= 0) {
             return shift >> 4 == chunkPos
                 ? IntStream.of(shift)
                 : IntStream.empty();
         }
 
-        int lowest = shift + ((chunkPos << 4) - shift) / repeatLength * repeatLength;
-        return IntStream.range(0, repeatLength + 1).map(x -> lowest + x * repeatLength);
+        // Only the repeats that actually lie within the chunk
+        int min = chunkPos << 4;
+        int lowest = min + Math.floorMod(shift - min, repeatLength);
+        return lowest > min + 15
+                ? IntStream.empty()
+                : IntStream.rangeClosed(0, (min + 15 - lowest) / repeatLength).map(x -> lowest + x * repeatLength);
     }
 
     public static Stream<BlockSurfacePos> repeatIntersections(ChunkPos chunkPos, BlockSurfacePos pos, int repeatX, int repeatZ) {
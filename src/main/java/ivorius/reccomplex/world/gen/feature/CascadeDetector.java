@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notices chunks that are generated while one of our generation actions runs on the same thread - those chunks
+ * were generated because of us. Chunks read from disk are fine, even if they were never populated.
+ */
+public class CascadeDetector
+{
+    private static final ConcurrentMap<String, AtomicInteger> cascades = new ConcurrentHashMap<>();
+
+    // Posted right before the chunk's load event, on the same thread
+    private final ThreadLocal<Chunk> readChunk = new ThreadLocal<>();
+
+    public static int cascades(@Nonnull String structureID)
+    {
+        AtomicInteger count = cascades.get(structureID);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * @return Whether the structure caused too many cascades to be suggested for generation any more.
+     */
+    public static boolean isBlocked(@Nonnull String structureID)
+    {
+        return RCConfig.cascadeLimit >= 0 && cascades(structureID) > RCConfig.cascadeLimit;
+    }
+
+    public static void reset()
+    {
+        cascades.clear();
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public void onChunkRead(ChunkDataEvent.Load event)
+    {
+        if (!event.getWorld().isRemote)
+            readChunk.set(event.getChunk());
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public void onChunkLoad(ChunkEvent.Load event)
+    {
+        if (event.getWorld().isRemote)
+            return;
+
+        Chunk chunk = event.getChunk();
+        boolean generated = readChunk.get() != chunk;
+        readChunk.remove();
+
+        RCWorldgenMonitor.Action action = RCWorldgenMonitor.current();
+        if (action == null || !generated || chunk.isTerrainPopulated())
+            return;
+
+        RecurrentComplex.logger.warn("Cascading chunk generation of [{}, {}] in dimension {} happening while {}",
+                chunk.x, chunk.z, event.getWorld().provider.getDimension(), action.description());
+
+        if (action.structureID != null)
+        {
+            int count = cascades.computeIfAbsent(action.structureID, id -> new AtomicInteger()).incrementAndGet();
+
+            if (RCConfig.worldgenMetrics)
+                RCWorldgenMetrics.cascade(action.structureID);
+
+            if (RCConfig.cascadeLimit >= 0 && count == RCConfig.cascadeLimit + 1)
+                RecurrentComplex.logger.warn("Structure '{}' caused more than {} cascades and won't be suggested for generation any more", action.structureID, RCConfig.cascadeLimit);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import com.google.common.util.concurrent.Striped;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps chunks from being decorated by two threads at once. Only a thread's outermost chunk is waited for;
+ * chunks it cascades into are only taken if they're free, so threads never wait on each other while holding one.
+ */
+public class ChunkDecorationLocks
+{
+    public static final int DEFAULT_STRIPES = 4096;
+
+    protected final Striped<Lock> locks;
+    // How deep the thread is in cascading decoration
+    protected final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ChunkDecorationLocks(int stripes)
+    {
+        locks = Striped.lock(stripes);
+    }
+
+    public ChunkDecorationLocks()
+    {
+        this(DEFAULT_STRIPES);
+    }
+
+    protected static long key(int dimension, ChunkPos chunkPos)
+    {
+        return ChunkPos.asLong(chunkPos.x, chunkPos.z) ^ (long) dimension * 0x9E3779B97F4A7C15L;
+    }
+
+    protected Lock get(int dimension, ChunkPos chunkPos)
+    {
+        return locks.get(key(dimension, chunkPos));
+    }
+
+    /**
+     * @return false if the chunk is cascaded into and held by another thread. It should be decorated later instead.
+     */
+    public boolean lock(int dimension, ChunkPos chunkPos)
+    {
+        Lock lock = get(dimension, chunkPos);
+        int[] depth = this.depth.get();
+
+        if (depth[0] == 0)
+            lock.lock();
+        else if (!lock.tryLock())
+            return false;
+
+        depth[0]++;
+        return true;
+    }
+
+    public void unlock(int dimension, ChunkPos chunkPos)
+    {
+        depth.get()[0]--;
+        get(dimension, chunkPos).unlock();
+    }
+}
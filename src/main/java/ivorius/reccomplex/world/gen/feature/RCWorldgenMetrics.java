@@ -0,0 +1,238 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-structure generation timings, failures and cascades, as recorded by {@link RCWorldgenMonitor}.
+ * Timings are self times, i.e. they don't include nested phases or structures.
+ * All counters are {@link LongAdder}s, so concurrent generation threads don't contend on them.
+ */
+public class RCWorldgenMetrics
+{
+    public static final String DUMP_FILE_NAME = "reccomplex-worldgen-metrics.csv";
+
+    private static final ConcurrentMap<String, StructureMetrics> structures = new ConcurrentHashMap<>();
+    private static volatile long lastDump = System.currentTimeMillis();
+
+    @Nonnull
+    public static StructureMetrics get(@Nonnull String structureID)
+    {
+        return structures.computeIfAbsent(structureID, StructureMetrics::new);
+    }
+
+    public static void record(@Nonnull String structureID, @Nonnull RCWorldgenMonitor.Phase phase, long nanos)
+    {
+        get(structureID).phases.get(phase).record(nanos);
+    }
+
+    public static void failure(@Nonnull String structureID, @Nonnull String reason)
+    {
+        get(structureID).failures.computeIfAbsent(reason, r -> new LongAdder()).increment();
+    }
+
+    public static void cascade(@Nonnull String structureID)
+    {
+        get(structureID).cascades.increment();
+    }
+
+    public static void reset()
+    {
+        structures.clear();
+    }
+
+    @Nonnull
+    public static List<StructureMetrics> all()
+    {
+        return new ArrayList<>(structures.values());
+    }
+
+    /**
+     * @return The structures that spent the most time in the given phase, or in all phases for null.
+     */
+    @Nonnull
+    public static List<StructureMetrics> top(RCWorldgenMonitor.Phase phase, int count)
+    {
+        return structures.values().stream()
+                .sorted(Comparator.comparingLong((StructureMetrics m) -> phase != null ? m.phases.get(phase).totalNanos() : m.totalNanos()).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    public static void writeCSV(@Nonnull Writer writer) throws IOException
+    {
+        writer.write("structure,metric,count,total_ms,mean_ms,max_ms,p50_ms,p99_ms\n");
+
+        for (StructureMetrics metrics : structures.values())
+        {
+            for (RCWorldgenMonitor.Phase phase : RCWorldgenMonitor.Phase.values())
+            {
+                PhaseMetrics phaseMetrics = metrics.phases.get(phase);
+                long count = phaseMetrics.count();
+                if (count == 0)
+                    continue;
+
+                writer.write(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f\n", metrics.structureID, phase.id, count,
+                        millis(phaseMetrics.totalNanos()), millis(phaseMetrics.totalNanos() / count), millis(phaseMetrics.maxNanos()),
+                        millis(phaseMetrics.percentileNanos(.5)), millis(phaseMetrics.percentileNanos(.99))));
+            }
+
+            for (Map.Entry<String, LongAdder> failure : metrics.failures.entrySet())
+                writer.write(String.format(Locale.ROOT, "%s,failure:%s,%d,,,,,\n", metrics.structureID, failure.getKey().replace(',', ' '), failure.getValue().sum()));
+
+            if (metrics.cascades.sum() > 0)
+                writer.write(String.format(Locale.ROOT, "%s,cascade,%d,,,,,\n", metrics.structureID, metrics.cascades.sum()));
+        }
+    }
+
+    @Nonnull
+    public static File dumpFile()
+    {
+        return new File(RecurrentComplex.proxy.getDataDirectory(), DUMP_FILE_NAME);
+    }
+
+    public static void dump(@Nonnull File file) throws IOException
+    {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+        {
+            writeCSV(writer);
+        }
+    }
+
+    public static void tick()
+    {
+        if (RCConfig.worldgenMetricsDumpInterval <= 0)
+            return;
+
+        long now = System.currentTimeMillis();
+        if (now - lastDump < RCConfig.worldgenMetricsDumpInterval * 1000L)
+            return;
+        lastDump = now;
+
+        try
+        {
+            dump(dumpFile());
+        }
+        catch (IOException e)
+        {
+            RecurrentComplex.logger.error("Could not write worldgen metrics", e);
+        }
+    }
+
+    public static double millis(long nanos)
+    {
+        return nanos / 1_000_000.0;
+    }
+
+    public static class StructureMetrics
+    {
+        public final String structureID;
+
+        public final Map<RCWorldgenMonitor.Phase, PhaseMetrics> phases = new EnumMap<>(RCWorldgenMonitor.Phase.class);
+        public final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+        public final LongAdder cascades = new LongAdder();
+
+        public StructureMetrics(String structureID)
+        {
+            this.structureID = structureID;
+
+            // Filled up front so the map is never written to concurrently
+            for (RCWorldgenMonitor.Phase phase : RCWorldgenMonitor.Phase.values())
+                phases.put(phase, new PhaseMetrics());
+        }
+
+        public long totalNanos()
+        {
+            return phases.values().stream().mapToLong(PhaseMetrics::totalNanos).sum();
+        }
+
+        public long failures()
+        {
+            return failures.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+
+    public static class PhaseMetrics
+    {
+        /**
+         * Bucket i counts durations in [2^i, 2^(i+1)) microseconds; bucket 0 also holds everything faster.
+         */
+        public static final int BUCKETS = 32;
+
+        protected final LongAdder count = new LongAdder();
+        protected final LongAdder totalNanos = new LongAdder();
+        protected final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        protected final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        public PhaseMetrics()
+        {
+            for (int i = 0; i < histogram.length; i++)
+                histogram[i] = new LongAdder();
+        }
+
+        public static int bucket(long nanos)
+        {
+            long micros = nanos / 1000;
+            return micros <= 0 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        }
+
+        public void record(long nanos)
+        {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            histogram[bucket(nanos)].increment();
+        }
+
+        public long count()
+        {
+            return count.sum();
+        }
+
+        public long totalNanos()
+        {
+            return totalNanos.sum();
+        }
+
+        public long maxNanos()
+        {
+            return maxNanos.get();
+        }
+
+        /**
+         * @return The upper bound of the histogram bucket the percentile falls into.
+         */
+        public long percentileNanos(double percentile)
+        {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++)
+                total += counts[i] = histogram[i].sum();
+
+            long threshold = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                if ((seen += counts[i]) >= threshold && counts[i] > 0)
+                    return Math.min((1L << (i + 1)) * 1000, maxNanos());
+            }
+
+            return maxNanos();
+        }
+    }
+}
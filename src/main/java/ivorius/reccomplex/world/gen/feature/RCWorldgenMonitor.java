@@ -5,30 +5,157 @@
 
 package ivorius.reccomplex.world.gen.feature;
 
-import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.RCConfig;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import net.minecraftforge.common.MinecraftForge;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
+/**
+ * Keeps track of what the current thread is generating, to time it in {@link RCWorldgenMetrics} and to
+ * know whom to blame for cascading chunk generation (see {@link CascadeDetector}).
+ */
 public class RCWorldgenMonitor
 {
-    protected final static Deque<String> actions = new ArrayDeque<>();
+    protected final static ThreadLocal<Deque<Action>> actions = ThreadLocal.withInitial(ArrayDeque::new);
 
     public static void start(String action)
     {
-        actions.push(action);
+        actions.get().push(new Action(null, null, null, null, action));
+    }
+
+    /**
+     * @param structureID The structure the phase belongs to, or null to inherit it from the enclosing action.
+     */
+    public static void start(@Nonnull Phase phase, @Nullable String structureID)
+    {
+        start(phase, structureID, null);
+    }
+
+    /**
+     * @param structureID The structure the phase belongs to, or null to inherit it from the enclosing action.
+     * @param boundingBox The area that is being generated, or null to inherit it from the enclosing action.
+     */
+    public static void start(@Nonnull Phase phase, @Nullable String structureID, @Nullable StructureBoundingBox boundingBox)
+    {
+        Action parent = actions.get().peek();
+        actions.get().push(new Action(phase,
+                structureID != null || parent == null ? structureID : parent.structureID,
+                boundingBox != null || parent == null ? boundingBox : parent.boundingBox,
+                parent != null ? parent.transformerID : null, null));
+    }
+
+    /**
+     * Starts running a single transformer of the enclosing structure.
+     */
+    public static void startTransformer(@Nonnull Phase phase, @Nonnull String transformerID)
+    {
+        Action parent = actions.get().peek();
+        actions.get().push(new Action(phase,
+                parent != null ? parent.structureID : null,
+                parent != null ? parent.boundingBox : null,
+                transformerID, null));
     }
 
     public static void stop()
     {
-        actions.pop();
+        Deque<Action> actions = RCWorldgenMonitor.actions.get();
+        Action action = actions.pop();
+
+        long elapsed = System.nanoTime() - action.start;
+        if (!actions.isEmpty())
+            actions.peek().childNanos += elapsed;
+
+        if (RCConfig.worldgenMetrics && action.phase != null && action.structureID != null)
+            RCWorldgenMetrics.record(action.structureID, action.phase, elapsed - action.childNanos);
+    }
+
+    @Nullable
+    public static Action current()
+    {
+        return actions.get().peek();
+    }
+
+    public static void failure(@Nullable String structureID, @Nonnull String reason)
+    {
+        if (RCConfig.worldgenMetrics && structureID != null)
+            RCWorldgenMetrics.failure(structureID, reason);
     }
 
     public static void create()
     {
-        WorldgenMonitor.create("Recurrent Complex", (p, d) -> {
-            if (!actions.isEmpty())
-                RecurrentComplex.logger.warn("Cascading chunk generation happening while {}", actions.peek());
-        });
+        MinecraftForge.EVENT_BUS.register(new CascadeDetector());
+    }
+
+    public enum Phase
+    {
+        PREPARE("prepare", "preparing"),
+        PLACE("place", "placing"),
+        GENERATE("generate", "generating"),
+        TRANSFORM_BEFORE("transform_before", "transforming (before)"),
+        TRANSFORM_AFTER("transform_after", "transforming (after)"),
+        COMPLEMENT("complement", "pre-complementing");
+
+        public final String id;
+        public final String verb;
+
+        Phase(String id, String verb)
+        {
+            this.id = id;
+            this.verb = verb;
+        }
+
+        @Nullable
+        public static Phase fromID(String id)
+        {
+            for (Phase phase : values())
+                if (phase.id.equals(id))
+                    return phase;
+            return null;
+        }
+    }
+
+    public static class Action
+    {
+        @Nullable
+        public final Phase phase;
+        @Nullable
+        public final String structureID;
+        @Nullable
+        public final StructureBoundingBox boundingBox;
+        @Nullable
+        public final String transformerID;
+        @Nullable
+        protected final String description;
+
+        protected final long start = System.nanoTime();
+        protected long childNanos;
+
+        public Action(@Nullable Phase phase, @Nullable String structureID, @Nullable StructureBoundingBox boundingBox, @Nullable String transformerID, @Nullable String description)
+        {
+            this.phase = phase;
+            this.structureID = structureID;
+            this.boundingBox = boundingBox;
+            this.transformerID = transformerID;
+            this.description = description;
+        }
+
+        public String description()
+        {
+            if (description != null)
+                return description;
+            if (phase == null)
+                return "unknown";
+
+            StringBuilder builder = new StringBuilder(phase.verb).append(' ').append(structureID);
+            if (transformerID != null)
+                builder.append(" (transformer ").append(transformerID).append(')');
+            if (boundingBox != null)
+                builder.append(" in ").append(boundingBox);
+            return builder.toString();
+        }
     }
 }
@@ -0,0 +1,177 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Spatial index of generation entries, bucketed by the (decoration-shifted) chunks their bounding boxes touch.
+ * Each entry remembers the buckets it was put into, so it can be removed without scanning all others,
+ * even if its bounding box changed in the meantime.
+ * <p>
+ * Safe to read while other threads change it. Changes to the same entry must not happen concurrently.
+ */
+public class StructureEntryIndex<E extends WorldStructureGenerationData.Entry>
+{
+    protected final ConcurrentMap<Long, Set<E>> buckets = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<UUID, long[]> entryKeys = new ConcurrentHashMap<>();
+
+    public static long key(int chunkX, int chunkZ)
+    {
+        return ChunkPos.asLong(chunkX, chunkZ);
+    }
+
+    public static long key(ChunkPos pos)
+    {
+        return key(pos.x, pos.z);
+    }
+
+    public static int keyX(long key)
+    {
+        return (int) key;
+    }
+
+    public static int keyZ(long key)
+    {
+        return (int) (key >>> 32);
+    }
+
+    public static long[] keys(StructureBoundingBox boundingBox)
+    {
+        if (!RCStructureBoundingBoxes.valid(boundingBox))
+            return new long[0];
+
+        // Shifted by 8 since the map is rasterized for decoration, where every chunk is +8
+        int minX = (boundingBox.minX - 8) >> 4, maxX = (boundingBox.maxX - 8) >> 4;
+        int minZ = (boundingBox.minZ - 8) >> 4, maxZ = (boundingBox.maxZ - 8) >> 4;
+
+        long[] keys = new long[(maxX - minX + 1) * (maxZ - minZ + 1)];
+        int i = 0;
+        for (int x = minX; x <= maxX; x++)
+            for (int z = minZ; z <= maxZ; z++)
+                keys[i++] = key(x, z);
+
+        return keys;
+    }
+
+    public void add(@Nonnull E entry)
+    {
+        remove(entry.getUuid());
+
+        long[] keys = keys(entry.getBoundingBox());
+        for (long key : keys)
+        {
+            buckets.compute(key, (k, bucket) ->
+            {
+                if (bucket == null)
+                    bucket = ConcurrentHashMap.newKeySet(4);
+                bucket.add(entry);
+                return bucket;
+            });
+        }
+
+        entryKeys.put(entry.getUuid(), keys);
+    }
+
+    public boolean remove(@Nonnull UUID id)
+    {
+        long[] keys = entryKeys.remove(id);
+        if (keys == null)
+            return false;
+
+        for (long key : keys)
+        {
+            buckets.computeIfPresent(key, (k, bucket) ->
+            {
+                bucket.removeIf(e -> e.getUuid().equals(id));
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The chunk keys the entry was indexed under, or null if it isn't indexed.
+     */
+    public long[] keys(@Nonnull UUID id)
+    {
+        return entryKeys.get(id);
+    }
+
+    public boolean contains(@Nonnull UUID id)
+    {
+        return entryKeys.containsKey(id);
+    }
+
+    public void clear()
+    {
+        buckets.clear();
+        entryKeys.clear();
+    }
+
+    public int size()
+    {
+        return entryKeys.size();
+    }
+
+    @Nonnull
+    public Set<E> at(long key)
+    {
+        Set<E> bucket = buckets.get(key);
+        return bucket != null ? Collections.unmodifiableSet(bucket) : Collections.emptySet();
+    }
+
+    @Nonnull
+    public Stream<E> at(@Nonnull ChunkPos pos)
+    {
+        return at(key(pos)).stream();
+    }
+
+    @Nonnull
+    public Stream<E> at(@Nonnull BlockPos pos)
+    {
+        return at(key((pos.getX() - 8) >> 4, (pos.getZ() - 8) >> 4)).stream()
+                .filter(e -> e.getBoundingBox() != null && e.getBoundingBox().isVecInside(pos));
+    }
+
+    /**
+     * @return All entries whose bounding box intersects the given one, each reported once.
+     */
+    @Nonnull
+    public Stream<E> intersecting(@Nonnull StructureBoundingBox boundingBox)
+    {
+        long[] keys = keys(boundingBox);
+
+        if (keys.length == 1) // Most common case, no need to dedupe
+            return at(keys[0]).stream().filter(e -> e.getBoundingBox() != null && e.getBoundingBox().intersectsWith(boundingBox));
+
+        Set<E> found = new HashSet<>();
+        for (long key : keys)
+            for (E entry : at(key))
+                if (entry.getBoundingBox() != null && entry.getBoundingBox().intersectsWith(boundingBox))
+                    found.add(entry);
+
+        return found.stream();
+    }
+
+    @Nonnull
+    public LongSet keySet()
+    {
+        return new LongOpenHashSet(buckets.keySet());
+    }
+}
@@ -38,6 +38,7 @@ import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -130,7 +131,7 @@ public class StructureGenerator<S extends NBTStorable>
     {
         Optional<S> optionalInstanceData;
 
-        RCWorldgenMonitor.start("preparing " + structureID());
+        RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.PREPARE, structureID());
         try {
             optionalInstanceData = instanceData();
         }
@@ -152,19 +153,39 @@ public class StructureGenerator<S extends NBTStorable>
 
         WorldServer world = spawn.environment.world;
         StructureBoundingBox boundingBox = spawn.boundingBox;
+        boolean memorized = structureID != null && memorize;
+
+        WorldStructureGenerationData.StructureEntry structureEntry = null;
+        Collection<ChunkPos> existingChunks = null;
 
         if (maturity().isSuggest()) {
             if (boundingBox.minY < MIN_DIST_TO_LIMIT || boundingBox.maxY > world.getHeight() - 1 - MIN_DIST_TO_LIMIT) {
                 return failGenerate(GenerationResult.Failure.outOfBounds);
             }
 
-            if (RCConfig.avoidOverlappingGeneration && !allowOverlaps && !WorldStructureGenerationData.get(world).entriesAt(boundingBox).noneMatch(WorldStructureGenerationData.Entry::blocking)) {
-                return failGenerate(GenerationResult.Failure.structureOverlap);
+            if (RCConfig.avoidOverlappingGeneration && !allowOverlaps) {
+                WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
+
+                if (memorized && firstTime) {
+                    // Check and add in one go, so nothing else can be generated into the area meanwhile
+                    structureEntry = createEntry(structure, structureID, instanceData, spawn);
+                    Set<ChunkPos> checkedChunks = data.addEntryIfFree(structureEntry, WorldStructureGenerationData.Entry::blocking);
+                    if (checkedChunks == null)
+                        return failGenerate(GenerationResult.Failure.structureOverlap);
+                    existingChunks = Sets.newHashSet(checkedChunks);
+                }
+                else if (!data.entriesAt(boundingBox).noneMatch(WorldStructureGenerationData.Entry::blocking)) {
+                    return failGenerate(GenerationResult.Failure.structureOverlap);
+                }
+            }
+
+            if (structureID != null && CascadeDetector.isBlocked(structureID)) {
+                return failGenerate(GenerationResult.Failure.cascade, structureEntry);
             }
 
             if (RCEventBus.INSTANCE.post(new StructureGenerationEvent.Suggest(structure, spawn))
                     || (structureID != null && MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Suggest(world, structureID, boundingBox, spawn.generationLayer, firstTime)))) {
-                return failGenerate(GenerationResult.Failure.cancel);
+                return failGenerate(GenerationResult.Failure.cancel, structureEntry);
             }
         }
 
@@ -174,12 +195,12 @@ public class StructureGenerator<S extends NBTStorable>
                 MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Pre(world, structureID, boundingBox, spawn.generationLayer, firstTime));
         }
 
-        RCWorldgenMonitor.start("generating " + structureID());
+        RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.GENERATE, structureID(), boundingBox);
         try {
             structure.generate(spawn, instanceData, foreignTransformer());
         }
         catch (Exception e) {
-            return failGenerate(new GenerationResult.Failure.Exception(e));
+            return failGenerate(new GenerationResult.Failure.Exception(e), structureEntry);
         }
         finally {
             RCWorldgenMonitor.stop();
@@ -194,27 +215,20 @@ public class StructureGenerator<S extends NBTStorable>
         if (structureID != null)
             MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Post(world, structureID, boundingBox, spawn.generationLayer, firstTime));
 
-        if (structureID == null || !memorize)
+        if (!memorized)
             return GenerationResult.Success.contemporary;
 
-        String generationInfoID = generationType != null ? generationType.id() : null;
-
-        WorldStructureGenerationData.StructureEntry structureEntry =
-                WorldStructureGenerationData.StructureEntry.complete(structureID, generationInfoID, boundingBox, spawn.transform, !partially);
-        structureEntry.blocking = structure.isBlocking();
-        structureEntry.firstTime = false; // Been there done that
-        structureEntry.seed = seed();
-
-        try {
-            structureEntry.instanceData = instanceData.writeToNBT();
+        if (structureEntry != null) {
+            // Added before generating, so save what generating changed
+            writeInstanceData(structureEntry, structure, instanceData, boundingBox);
+            WorldStructureGenerationData.get(world).markDirty(structureEntry);
         }
-        catch (Exception e) {
-            RecurrentComplex.logger.error(String.format("Error saving instance data for structure %s in %s", structure, boundingBox), e);
+        else {
+            structureEntry = createEntry(structure, structureID, instanceData, spawn);
+            existingChunks = Sets.newHashSet(WorldStructureGenerationData.get(world)
+                    .addEntry(structureEntry));
         }
 
-        Collection<ChunkPos> existingChunks = Sets.newHashSet(WorldStructureGenerationData.get(world)
-                .addEntry(structureEntry));
-
         // Complement in all chunks that already exist
         if (partially) {
             maturity(StructureSpawnContext.GenerateMaturity.COMPLEMENT);
@@ -226,9 +240,13 @@ public class StructureGenerator<S extends NBTStorable>
                 if (oldBB.intersectsWith(generationBB))
                     continue; // Skip those that we just generated in, especially the same chunk
 
-                RCWorldgenMonitor.start("pre-complementing " + structureID());
-                structure.generate(spawn().get(), instanceData, RCConfig.getUniversalTransformer());
-                RCWorldgenMonitor.stop();
+                RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.COMPLEMENT, structureID(), boundingBox);
+                try {
+                    structure.generate(spawn().get(), instanceData, RCConfig.getUniversalTransformer());
+                }
+                finally {
+                    RCWorldgenMonitor.stop();
+                }
             }
             generationBB(oldBB);
         }
@@ -242,9 +260,48 @@ public class StructureGenerator<S extends NBTStorable>
         return transformer != null ? transformer.transformer : RCConfig.getUniversalTransformer();
     }
 
+    @Nonnull
+    protected WorldStructureGenerationData.StructureEntry createEntry(Structure<S> structure, String structureID, S instanceData, StructureSpawnContext spawn)
+    {
+        String generationInfoID = generationType != null ? generationType.id() : null;
+
+        WorldStructureGenerationData.StructureEntry structureEntry =
+                WorldStructureGenerationData.StructureEntry.complete(structureID, generationInfoID, spawn.boundingBox, spawn.transform, !partially);
+        structureEntry.blocking = structure.isBlocking();
+        structureEntry.firstTime = false; // Been there done that
+        structureEntry.seed = seed();
+        writeInstanceData(structureEntry, structure, instanceData, spawn.boundingBox);
+
+        return structureEntry;
+    }
+
+    protected void writeInstanceData(WorldStructureGenerationData.StructureEntry structureEntry, Structure<S> structure, S instanceData, StructureBoundingBox boundingBox)
+    {
+        try {
+            structureEntry.instanceData = instanceData.writeToNBT();
+        }
+        catch (Exception e) {
+            RecurrentComplex.logger.error(String.format("Error saving instance data for structure %s in %s", structure, boundingBox), e);
+        }
+    }
+
+    /**
+     * Also removes the entry that was added for the generation, if any.
+     */
+    @Nonnull
+    protected GenerationResult.Failure failGenerate(@Nonnull GenerationResult.Failure failure, @Nullable WorldStructureGenerationData.StructureEntry structureEntry)
+    {
+        if (structureEntry != null)
+            WorldStructureGenerationData.get(world()).removeEntry(structureEntry.getUuid());
+
+        return failGenerate(failure);
+    }
+
     @Nonnull
     protected GenerationResult.Failure failGenerate(@Nonnull GenerationResult.Failure failure)
     {
+        RCWorldgenMonitor.failure(structureID(), failure.description);
+
         if (RCConfig.logFailingStructure(structure)) {
             Optional<Integer> dim = Optional.ofNullable(world).map(w -> w.provider.getDimension());
 
@@ -428,9 +485,14 @@ public class StructureGenerator<S extends NBTStorable>
                 boundingBox = Structures.boundingBox((fromCenter ? surfacePos.subtract(size[0] / 2, size[2] / 2) : surfacePos).blockPos(0), size);
 
                 if (placed) {
-                    RCWorldgenMonitor.start("placing " + structureID());
-                    int y = placer.place(place(), structure().blockCollection());
-                    RCWorldgenMonitor.stop();
+                    int y;
+                    RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.PLACE, structureID(), boundingBox);
+                    try {
+                        y = placer.place(place(), structure().blockCollection());
+                    }
+                    finally {
+                        RCWorldgenMonitor.stop();
+                    }
 
                     if (y < 0) return Optional.empty();
                     boundingBox.minY += y;
@@ -542,7 +604,7 @@ public class StructureGenerator<S extends NBTStorable>
                 : this.instanceDataNBT != null ? load().map(load -> structure().loadInstanceData(load, this.instanceDataNBT, foreignTransformer()))
                 : prepare().flatMap(prepare ->
         {
-            RCWorldgenMonitor.start("preparing " + structureID());
+            RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.PREPARE, structureID());
             try {
                 return Optional.ofNullable(structure().prepareInstanceData(prepare, foreignTransformer()));
             }
@@ -644,7 +706,8 @@ public class StructureGenerator<S extends NBTStorable>
                     placement = new Failure("No suitable place"),
                     structureOverlap = new Failure("Overlapping Structure"),
                     outOfBounds = new Failure("Out of Bounds"),
-                    cancel = new Failure("Cancelled for Other Reasons");
+                    cancel = new Failure("Cancelled for Other Reasons"),
+                    cascade = new Failure("Causes Cascading Generation");
             public final String description;
 
             public Failure(String description)
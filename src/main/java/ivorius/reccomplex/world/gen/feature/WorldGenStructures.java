@@ -17,18 +17,21 @@ import ivorius.reccomplex.world.gen.feature.structure.Structures;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.NaturalGeneration;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.StaticGeneration;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.VanillaDecorationGeneration;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.biome.Biome;
+import net.minecraftforge.common.DimensionManager;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 24.05.14.
@@ -39,6 +42,12 @@ public class WorldGenStructures
 
     public static final int STRUCTURE_TRIES = 10;
 
+    public static final long DEFERRED_SEED = 7219874129874120347L;
+
+    protected static final ChunkDecorationLocks CHUNK_LOCKS = new ChunkDecorationLocks();
+    // Cascaded decoration of chunks that were locked by another thread at the time
+    protected static final Queue<DeferredDecoration> DEFERRED_DECORATION = new ConcurrentLinkedQueue<>();
+
     public static void planStaticStructuresInChunk(Random random, ChunkPos chunkPos, WorldServer world, BlockPos spawnPos, @Nullable Predicate<Structure> structurePredicate)
     {
         StaticGeneration.structuresAt(StructureRegistry.INSTANCE, chunkPos, world, spawnPos).forEach(triple ->
@@ -57,6 +66,12 @@ public class WorldGenStructures
         });
     }
 
+    public static void warmSelectors(WorldServer world)
+    {
+        NaturalGeneration.selectors(StructureRegistry.INSTANCE).warm(world.provider);
+        VanillaDecorationGeneration.selectors(StructureRegistry.INSTANCE).warm(world.provider);
+    }
+
     protected static float distance(ChunkPos left, ChunkPos right)
     {
         return MathHelper.sqrt(
@@ -153,7 +168,7 @@ public class WorldGenStructures
             if (entry.firstTime)
             {
                 entry.firstTime = false;
-                data.markDirty();
+                data.markDirty(entry);
             }
         });
     }
@@ -187,15 +202,19 @@ public class WorldGenStructures
         WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
 
         // We need to synchronize (multithreaded gen) since we need to plan structures before complementing,
-        // otherwise structures get lost in some chunks
-        synchronized (data)
+        // otherwise structures get lost in some chunks. Checking and fetching the complement list happens
+        // atomically in the data, so we only need to make sure the same chunk isn't decorated twice at once.
+        int dimension = world.provider.getDimension();
+        if (!CHUNK_LOCKS.lock(dimension, chunkPos))
         {
-            // TODO Synchronize on chunk pos instead (need to make sure these are only added on same sync though)
-
-            List<WorldStructureGenerationData.StructureEntry> complement = data.structureEntriesIn(chunkPos).collect(Collectors.toList());
-            if (structurePredicate == null)
-                data.checkChunk(chunkPos);
+            // Waiting here could deadlock with the thread that has it, so leave it for later.
+            // Seeded by the chunk, since drawing from random would change what the caller generates next.
+            DEFERRED_DECORATION.add(new DeferredDecoration(world, chunkSeed(world.getSeed() ^ DEFERRED_SEED, chunkPos), chunkPos, structurePredicate));
+            return false;
+        }
 
+        try
+        {
             // Complement before generating so we don't complement newly planned structures:
             // Chunk checked
             // Structure starts generating
@@ -204,7 +223,7 @@ public class WorldGenStructures
             // Other structures that generated into this one are not complemented into it because complementation happened already
 
             if (structurePredicate == null)
-                complementStructuresInChunk(chunkPos, world, complement);
+                complementStructuresInChunk(chunkPos, world, data.checkChunkForComplementation(chunkPos));
 
             if ((!RCConfig.honorStructureGenerationOption || worldWantsStructures)
                     // If partially spawn, check chunks as having tried to add partial structures as into the thingy
@@ -229,7 +248,47 @@ public class WorldGenStructures
                 generated = true;
             }
         }
+        finally
+        {
+            CHUNK_LOCKS.unlock(dimension, chunkPos);
+        }
 
         return generated;
     }
+
+    /**
+     * Decorates chunks whose cascaded decoration had to be deferred. Anything deferred again meanwhile waits for the next call.
+     */
+    public static void decorateDeferred()
+    {
+        for (int i = DEFERRED_DECORATION.size(); i > 0; i--)
+        {
+            DeferredDecoration deferred = DEFERRED_DECORATION.poll();
+            if (deferred == null)
+                break;
+
+            WorldServer world = deferred.world;
+            if (DimensionManager.getWorld(world.provider.getDimension()) != world)
+                continue; // Unloaded since
+
+            decorate(world, new Random(deferred.seed), deferred.chunkPos, deferred.structurePredicate);
+        }
+    }
+
+    protected static class DeferredDecoration
+    {
+        public final WorldServer world;
+        public final long seed;
+        public final ChunkPos chunkPos;
+        @Nullable
+        public final Predicate<Structure> structurePredicate;
+
+        public DeferredDecoration(WorldServer world, long seed, ChunkPos chunkPos, @Nullable Predicate<Structure> structurePredicate)
+        {
+            this.world = world;
+            this.seed = seed;
+            this.chunkPos = chunkPos;
+            this.structurePredicate = structurePredicate;
+        }
+    }
 }
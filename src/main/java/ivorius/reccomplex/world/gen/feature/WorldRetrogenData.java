@@ -0,0 +1,310 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.files.RCFiles;
+import ivorius.reccomplex.files.loading.FileSuffixFilter;
+import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.utils.expression.ResourceExpression;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.DimensionManager;
+import org.apache.commons.lang3.tuple.Pair;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A retrogen job of one dimension that is processed in the background, a few chunks per tick, region by region.
+ * The cursor is saved with the world so the job continues after a restart.
+ */
+public class WorldRetrogenData extends WorldSavedData
+{
+    private static final String IDENTIFIER = RecurrentComplex.MOD_ID + "-retrogen";
+
+    public static final int CHUNKS_PER_REGION = 32 * 32;
+    public static final long PROGRESS_LOG_INTERVAL = 60 * 1000;
+
+    protected boolean active;
+    @Nullable
+    protected String expression;
+
+    // Sorted x0, z0, x1, z1, ...
+    protected int[] regions = new int[0];
+    protected int regionIndex;
+    protected int chunkIndex;
+
+    protected long processed;
+    protected long generated;
+
+    @Nullable
+    protected Predicate<Structure> predicate;
+
+    protected long sessionStart;
+    protected long sessionStartSlot;
+    protected long lastLog;
+
+    public WorldRetrogenData(String id)
+    {
+        super(id);
+    }
+
+    public WorldRetrogenData()
+    {
+        this(IDENTIFIER);
+    }
+
+    public static WorldRetrogenData get(World world)
+    {
+        WorldRetrogenData data = (WorldRetrogenData) world.getPerWorldStorage().getOrLoadData(WorldRetrogenData.class, IDENTIFIER);
+        if (data == null)
+        {
+            data = new WorldRetrogenData();
+            world.getPerWorldStorage().setData(data.mapName, data);
+        }
+        return data;
+    }
+
+    public static Stream<Pair<Integer, Integer>> existingRegions(File worldDir)
+    {
+        File regionsDirectory = RCFiles.getValidatedFolder(new File(worldDir, "region"), false);
+        if (regionsDirectory == null) return Stream.empty();
+
+        String[] mcas = regionsDirectory.list(new FileSuffixFilter("mca"));
+        if (mcas == null) throw new IllegalStateException();
+
+        return Arrays.stream(mcas).map(s -> s.split("\\."))
+                .filter(p -> p.length == 4 && p[0].equals("r")) // Is region file
+                .map(p -> Pair.of(Integer.parseInt(p[1]), Integer.parseInt(p[2])));
+    }
+
+    public static Random getRandom(WorldServer world, ChunkPos pos)
+    {
+        return world.setRandomSeed(pos.x, pos.z, 0xDEADBEEF);
+    }
+
+    /**
+     * Works on all worlds' jobs until the tick's budget is used up.
+     */
+    public static void tick()
+    {
+        if (RCConfig.retrogenTickBudget <= 0)
+            return;
+
+        long deadline = System.nanoTime() + RCConfig.retrogenTickBudget * 1_000_000L;
+
+        for (WorldServer world : DimensionManager.getWorlds())
+        {
+            WorldRetrogenData data = get(world);
+
+            while (data.active && System.nanoTime() < deadline)
+                data.step(world);
+        }
+    }
+
+    public void start(WorldServer world, @Nullable String expression)
+    {
+        this.active = true;
+        this.expression = expression;
+        this.predicate = null;
+
+        regions = existingRegions(world.getChunkSaveLocation())
+                .sorted(Comparator.comparing((Pair<Integer, Integer> p) -> p.getLeft()).thenComparing(Pair::getRight))
+                .flatMap(p -> Stream.of(p.getLeft(), p.getRight()))
+                .mapToInt(Integer::intValue).toArray();
+        regionIndex = 0;
+        chunkIndex = 0;
+        processed = 0;
+        generated = 0;
+
+        startSession();
+        setDirty(true);
+    }
+
+    public void cancel()
+    {
+        active = false;
+        setDirty(true);
+    }
+
+    public boolean isActive()
+    {
+        return active;
+    }
+
+    public long processed()
+    {
+        return processed;
+    }
+
+    public long generated()
+    {
+        return generated;
+    }
+
+    public int regionCount()
+    {
+        return regions.length / 2;
+    }
+
+    /**
+     * @return The fraction of region slots already visited.
+     */
+    public double progress()
+    {
+        long total = (long) regionCount() * CHUNKS_PER_REGION;
+        return total > 0 ? (double) slot() / total : 1;
+    }
+
+    /**
+     * @return Visited chunks per second since the job was started or resumed.
+     */
+    public double throughput()
+    {
+        double seconds = (System.currentTimeMillis() - sessionStart) / 1000.0;
+        return seconds > 0 ? (slot() - sessionStartSlot) / seconds : 0;
+    }
+
+    /**
+     * @return Estimated seconds until the job is done, or -1 if unknown.
+     */
+    public long eta()
+    {
+        double seconds = (System.currentTimeMillis() - sessionStart) / 1000.0;
+        long done = slot() - sessionStartSlot;
+        if (done <= 0 || seconds <= 0)
+            return -1;
+
+        long remaining = (long) regionCount() * CHUNKS_PER_REGION - slot();
+        return (long) (remaining * seconds / done);
+    }
+
+    protected long slot()
+    {
+        return (long) regionIndex * CHUNKS_PER_REGION + chunkIndex;
+    }
+
+    protected void startSession()
+    {
+        sessionStart = lastLog = System.currentTimeMillis();
+        sessionStartSlot = slot();
+    }
+
+    @Nullable
+    protected Predicate<Structure> predicate()
+    {
+        if (predicate == null && expression != null)
+        {
+            ResourceExpression matcher = ExpressionCache.of(new ResourceExpression(s -> !s.isEmpty()), expression);
+            predicate = s -> matcher.test(StructureRegistry.INSTANCE.resourceLocation(s));
+        }
+        return predicate;
+    }
+
+    /**
+     * Visits the next chunk slot of the current region.
+     */
+    protected void step(WorldServer world)
+    {
+        if (sessionStart == 0)
+            startSession(); // Resumed after loading
+
+        if (regionIndex >= regionCount())
+        {
+            active = false;
+            setDirty(true);
+            RecurrentComplex.logger.info(String.format("Retrogen of dimension %d done: %d chunks visited, %d generated", world.provider.getDimension(), processed, generated));
+            return;
+        }
+
+        int regionX = regions[regionIndex * 2], regionZ = regions[regionIndex * 2 + 1];
+        int x = (regionX << 5) + (chunkIndex & 31), z = (regionZ << 5) + (chunkIndex >> 5);
+
+        RegionFile regionFile = RegionFileCache.createOrLoadRegionFile(world.getChunkSaveLocation(), x, z);
+        if (regionFile.chunkExists(x & 31, z & 31))
+        {
+            ChunkProviderServer provider = world.getChunkProvider();
+            boolean wasLoaded = provider.getLoadedChunk(x, z) != null;
+
+            Chunk chunk = provider.provideChunk(x, z);
+            ChunkPos pos = new ChunkPos(x, z);
+
+            if (chunk.isTerrainPopulated() && WorldGenStructures.decorate(world, getRandom(world, pos), pos, predicate()))
+                generated++;
+            processed++;
+
+            // Keep memory flat; the chunk stays if anything else still needs it
+            if (!wasLoaded)
+                provider.queueUnload(chunk);
+        }
+
+        if (++chunkIndex >= CHUNKS_PER_REGION)
+        {
+            chunkIndex = 0;
+            regionIndex++;
+        }
+
+        setDirty(true);
+
+        long now = System.currentTimeMillis();
+        if (now - lastLog > PROGRESS_LOG_INTERVAL)
+        {
+            lastLog = now;
+            RecurrentComplex.logger.info(String.format("Retrogen of dimension %d: %.1f%% (%d chunks, %.1f chunks/s, ~%ds left)",
+                    world.provider.getDimension(), progress() * 100, processed, throughput(), eta()));
+        }
+    }
+
+    @Override
+    public void readFromNBT(@Nonnull NBTTagCompound compound)
+    {
+        active = compound.getBoolean("active");
+        expression = compound.hasKey("expression") ? compound.getString("expression") : null;
+        predicate = null;
+
+        regions = compound.getIntArray("regions");
+        regionIndex = compound.getInteger("regionIndex");
+        chunkIndex = compound.getInteger("chunkIndex");
+
+        processed = compound.getLong("processed");
+        generated = compound.getLong("generated");
+    }
+
+    @Nonnull
+    @Override
+    public NBTTagCompound writeToNBT(@Nonnull NBTTagCompound compound)
+    {
+        compound.setBoolean("active", active);
+        if (expression != null)
+            compound.setString("expression", expression);
+
+        compound.setIntArray("regions", regions);
+        compound.setInteger("regionIndex", regionIndex);
+        compound.setInteger("chunkIndex", chunkIndex);
+
+        compound.setLong("processed", processed);
+        compound.setLong("generated", generated);
+
+        return compound;
+    }
+}
@@ -5,49 +5,76 @@
 
 package ivorius.reccomplex.world.gen.feature;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
-import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.*;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
 import ivorius.ivtoolkit.tools.NBTCompoundObject;
 import ivorius.ivtoolkit.tools.NBTCompoundObjects;
 import ivorius.ivtoolkit.tools.NBTTagLists;
-import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
 import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.files.loading.FileSuffixFilter;
 import ivorius.reccomplex.utils.RCAxisAlignedTransform;
 import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.Structures;
+import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraft.world.storage.WorldSavedData;
 import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
+ * Thread safe. Each region has its own lock, which guards its chunk flags and entries and is held while they change;
+ * calls spanning several regions lock them in order of their keys. The entries themselves are kept in concurrent maps,
+ * so different regions can be worked on at the same time.
+ * <p>
  * Created by lukas on 01.03.15.
  */
 public class WorldStructureGenerationData extends WorldSavedData
 {
     private static final String IDENTIFIER = RecurrentComplex.MOD_ID + "-structuredata";
 
-    protected final Set<ChunkPos> checkedChunks = new HashSet<>();
-    protected final Set<ChunkPos> checkedChunksFinal = new HashSet<>();
+    public static final int REGION_SHIFT = 5;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
 
-    protected final Map<UUID, Entry> entryMap = new HashMap<>();
-    protected final SetMultimap<ChunkPos, Entry> chunkMap = HashMultimap.create();
+    public static final String REGION_SUFFIX = "dat";
 
-    protected final SetMultimap<String, StructureEntry> instanceMap = HashMultimap.create();
+    // Where regions are stored lazily, like .mca files. If null, everything is kept in memory and in the main file.
+    @Nullable
+    protected volatile File regionDirectory;
+    protected final ConcurrentMap<Long, Region> regions = new ConcurrentHashMap<>();
+    protected volatile int saveCycle;
+
+    protected final ConcurrentMap<UUID, Entry> entryMap = new ConcurrentHashMap<>();
+    protected final StructureEntryIndex<Entry> entryIndex = new StructureEntryIndex<>();
+    // One region of each entry, including unloaded ones, so entries can be found by ID alone
+    protected final ConcurrentMap<UUID, Long> entryRegions = new ConcurrentHashMap<>();
+    protected volatile boolean entryRegionsComplete = true;
+
+    // Counted over all regions, including unloaded ones
+    protected final ConcurrentMap<String, Integer> structureCounts = new ConcurrentHashMap<>();
 
     public WorldStructureGenerationData(String id)
     {
@@ -67,75 +94,414 @@ public class WorldStructureGenerationData extends WorldSavedData
             data = new WorldStructureGenerationData();
             world.getPerWorldStorage().setData(data.mapName, data);
         }
+        if (data.regionDirectory == null && world instanceof WorldServer)
+            data.setRegionDirectory(new File(new File(((WorldServer) world).getChunkSaveLocation(), "data"), IDENTIFIER));
         return data;
     }
 
+    public static long regionKey(int chunkX, int chunkZ)
+    {
+        return ChunkPos.asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+
+    public static LongSet regionKeys(long[] chunkKeys)
+    {
+        LongSet keys = new LongOpenHashSet(1);
+        for (long chunkKey : chunkKeys)
+            keys.add(regionKey(StructureEntryIndex.keyX(chunkKey), StructureEntryIndex.keyZ(chunkKey)));
+        return keys;
+    }
+
+    protected static long[] sorted(LongSet keys)
+    {
+        long[] array = keys.toLongArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    @Nullable
+    public File getRegionDirectory()
+    {
+        return regionDirectory;
+    }
+
+    public synchronized void setRegionDirectory(@Nullable File regionDirectory)
+    {
+        this.regionDirectory = regionDirectory;
+
+        if (!entryRegionsComplete && regionDirectory != null)
+            indexRegionFiles(regionDirectory);
+    }
+
+    @Nonnull
+    protected File regionFile(@Nonnull File directory, int regionX, int regionZ)
+    {
+        return new File(directory, String.format("r.%d.%d.%s", regionX, regionZ, REGION_SUFFIX));
+    }
+
+    /**
+     * Locks the region, loading it if needed. Unlock it again once done.
+     * Never lock a region with a smaller key than one that is already held, or threads may deadlock.
+     */
+    @Nonnull
+    protected Region lockRegion(long key)
+    {
+        while (true)
+        {
+            Region region = regions.computeIfAbsent(key, k -> new Region(StructureEntryIndex.keyX(k), StructureEntryIndex.keyZ(k)));
+            region.lock.lock();
+
+            if (region.unloaded)
+            {
+                // Unloaded while we were waiting for it, so get the next one
+                region.lock.unlock();
+                continue;
+            }
+
+            if (!region.loaded)
+            {
+                loadRegion(region);
+                region.loaded = true;
+            }
+
+            region.lastAccess = saveCycle;
+            return region;
+        }
+    }
+
+    /**
+     * @param keys Region keys, sorted.
+     */
+    @Nonnull
+    protected List<Region> lockRegions(long[] keys)
+    {
+        List<Region> locked = new ArrayList<>(keys.length);
+        try
+        {
+            for (long key : keys)
+                locked.add(lockRegion(key));
+        }
+        catch (RuntimeException e)
+        {
+            unlock(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    protected static void unlock(List<Region> regions)
+    {
+        for (Region region : regions)
+            region.lock.unlock();
+    }
+
+    protected <T> T inRegion(int chunkX, int chunkZ, Function<Region, T> function)
+    {
+        return inRegion(regionKey(chunkX, chunkZ), function);
+    }
+
+    protected <T> T inRegion(long key, Function<Region, T> function)
+    {
+        Region region = lockRegion(key);
+        try
+        {
+            return function.apply(region);
+        }
+        finally
+        {
+            region.lock.unlock();
+        }
+    }
+
+    protected <T> T inRegions(long[] chunkKeys, Supplier<T> supplier)
+    {
+        List<Region> locked = lockRegions(sorted(regionKeys(chunkKeys)));
+        try
+        {
+            return supplier.get();
+        }
+        finally
+        {
+            unlock(locked);
+        }
+    }
+
+    protected void loadRegion(Region region)
+    {
+        File directory = regionDirectory;
+        if (directory == null)
+            return;
+
+        File file = regionFile(directory, region.x, region.z);
+        if (file.exists())
+        {
+            try (InputStream stream = new FileInputStream(file))
+            {
+                readRegion(region, CompressedStreamTools.readCompressed(stream));
+            }
+            catch (IOException e)
+            {
+                RecurrentComplex.logger.error(String.format("Error reading structure data region %s", file), e);
+            }
+        }
+    }
+
+    /**
+     * Builds the entry region index from the region files, for data saved before there was one.
+     * Only reads entry IDs, the regions stay unloaded.
+     */
+    protected void indexRegionFiles(@Nonnull File directory)
+    {
+        String[] files = directory.list(new FileSuffixFilter(REGION_SUFFIX));
+        if (files != null)
+        {
+            for (String name : files)
+            {
+                String[] parts = name.split("\\.");
+                if (parts.length != 4 || !parts[0].equals("r"))
+                    continue;
+
+                try (InputStream stream = new FileInputStream(new File(directory, name)))
+                {
+                    long key = ChunkPos.asLong(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                    NBTTagCompound compound = CompressedStreamTools.readCompressed(stream);
+                    for (String list : new String[]{"entries", "customEntries"})
+                    {
+                        NBTTagList entries = compound.getTagList(list, Constants.NBT.TAG_COMPOUND);
+                        for (int i = 0; i < entries.tagCount(); i++)
+                        {
+                            NBTTagCompound entry = entries.getCompoundTagAt(i);
+                            entryRegions.putIfAbsent(new UUID(entry.getLong("UUIDMS"), entry.getLong("UUIDLS")), key);
+                        }
+                    }
+                }
+                catch (IOException | NumberFormatException e)
+                {
+                    RecurrentComplex.logger.error(String.format("Error indexing structure data region %s", name), e);
+                }
+            }
+        }
+
+        entryRegionsComplete = true;
+        markDirty();
+    }
+
     public Stream<StructureEntry> structureEntriesIn(ChunkPos coords)
     {
         return entriesAt(coords)
                 .filter(StructureEntry.class::isInstance).map(StructureEntry.class::cast);
     }
 
+    // Streams are collected while locked, since the index may change while they are consumed
+
     public Stream<Entry> entriesAt(ChunkPos coords)
     {
-        return chunkMap.get(coords).stream();
+        return inRegion(coords.x, coords.z, region -> entryIndex.at(coords).collect(Collectors.toList())).stream();
     }
 
     public Stream<Entry> entriesAt(final BlockPos coords)
     {
-        // Add 8 for both since the chunk map is rasterized for decoration where every chunk is +8
-        return entriesAt(new ChunkPos((coords.getX() - 8) >> 4, (coords.getZ() - 8) >> 4))
-                .filter(input ->
-                {
-                    StructureBoundingBox bb = input.getBoundingBox();
-                    return bb != null && bb.isVecInside(coords);
-                });
+        return inRegion((coords.getX() - 8) >> 4, (coords.getZ() - 8) >> 4, region -> entryIndex.at(coords).collect(Collectors.toList())).stream();
     }
 
     public Stream<Entry> entriesAt(final StructureBoundingBox boundingBox)
     {
-        return RCStructureBoundingBoxes.rasterize(boundingBox, true).stream().flatMap(chunkPos -> entriesAt(chunkPos).filter(input ->
+        return inRegions(StructureEntryIndex.keys(boundingBox), () -> entryIndex.intersecting(boundingBox).collect(Collectors.toList())).stream();
+    }
+
+    /**
+     * Checks the chunk and returns the structures to complement in it, atomically.
+     * Any structure added afterwards will find the chunk checked, and complement it by itself.
+     */
+    public List<StructureEntry> checkChunkForComplementation(ChunkPos coords)
+    {
+        return inRegion(coords.x, coords.z, region ->
         {
-            StructureBoundingBox bb = input.getBoundingBox();
-            return bb != null && bb.intersectsWith(boundingBox);
-        }));
+            List<StructureEntry> complement = entryIndex.at(coords)
+                    .filter(StructureEntry.class::isInstance).map(StructureEntry.class::cast)
+                    .collect(Collectors.toList());
+            check(region, coords, false);
+            return complement;
+        });
     }
 
+    /**
+     * @return The chunks of the entry that were already checked, and need to be complemented by the caller.
+     */
     public Set<ChunkPos> addEntry(Entry entry)
     {
-        entryMap.put(entry.getUuid(), entry);
+        return addEntry(entry, null);
+    }
 
-        Set<ChunkPos> rasterized = entry.rasterize();
-        for (ChunkPos coords : rasterized)
-            chunkMap.put(coords, entry);
+    /**
+     * Adds the entry unless it intersects an entry matching blocking, atomically.
+     * No other entry can be added in the bounding box between the check and the add.
+     *
+     * @return null if blocked, or the chunks of the entry that were already checked, and need to be complemented by the caller.
+     */
+    @Nullable
+    public Set<ChunkPos> addEntryIfFree(Entry entry, @Nonnull Predicate<Entry> blocking)
+    {
+        return addEntry(entry, blocking);
+    }
 
-        if (entry instanceof StructureEntry)
-            instanceMap.put(((StructureEntry) entry).getStructureID(), (StructureEntry) entry);
+    @Nullable
+    protected Set<ChunkPos> addEntry(Entry entry, @Nullable Predicate<Entry> blocking)
+    {
+        UUID id = entry.getUuid();
+        long[] chunkKeys = StructureEntryIndex.keys(entry.getBoundingBox());
+        Set<ChunkPos> chunks = entry.rasterize();
 
-        markDirty();
+        LongSet keys = regionKeys(chunkKeys);
+        for (ChunkPos chunk : chunks)
+            keys.add(regionKey(chunk.x, chunk.z));
+
+        while (true)
+        {
+            // Lock everywhere the entry was, too, so it can be replaced in one go
+            long[] previousKeys = getEntry(id) != null ? entryIndex.keys(id) : null;
+            if (previousKeys != null)
+                keys.addAll(regionKeys(previousKeys));
+
+            // Includes all regions of the bounding box, so every intersecting entry is known and stays where it is
+            List<Region> locked = lockRegions(sorted(keys));
+            try
+            {
+                if (blocking != null && entryIndex.intersecting(entry.getBoundingBox()).anyMatch(other -> !other.getUuid().equals(id) && blocking.test(other)))
+                    return null;
+
+                Entry previous = entryMap.get(id);
+                if (previous != null)
+                {
+                    previousKeys = entryIndex.keys(id);
+                    if (previousKeys != null && !keys.containsAll(regionKeys(previousKeys)))
+                        continue; // Moved while we weren't looking
+
+                    removeLocked(previous, previousKeys);
+                }
 
-        return Sets.intersection(checkedChunks, rasterized);
+                entryMap.put(id, entry);
+                entryIndex.add(entry);
+                if (entry instanceof StructureEntry)
+                    structureCounts.merge(((StructureEntry) entry).getStructureID(), 1, Integer::sum);
+
+                for (long key : regionKeys(chunkKeys))
+                {
+                    Region region = regions.get(key);
+                    region.entries.add(id);
+                    region.dirty = true;
+                    entryRegions.putIfAbsent(id, key);
+                }
+
+                markDirty();
+
+                return chunks.stream().filter(chunk -> regions.get(regionKey(chunk.x, chunk.z)).checked.get(Region.index(chunk.x, chunk.z)))
+                        .collect(Collectors.toSet());
+            }
+            finally
+            {
+                unlock(locked);
+            }
+        }
     }
 
     public Entry getEntry(UUID id)
     {
-        return entryMap.get(id);
+        Entry entry = entryMap.get(id);
+
+        if (entry == null)
+        {
+            // Unknown IDs are just that, we don't go looking for them on disk
+            Long regionKey = entryRegions.get(id);
+            if (regionKey != null)
+                entry = inRegion(regionKey, region -> entryMap.get(id));
+        }
+
+        return entry;
     }
 
     public Entry removeEntry(UUID id)
     {
-        Entry entry = entryMap.remove(id);
-        chunkMap.values().removeIf(e -> e.uuid.equals(id));
-        instanceMap.values().removeIf(e -> e.uuid.equals(id));
+        while (true)
+        {
+            Entry entry = getEntry(id);
+            if (entry == null)
+                return null;
+
+            long[] chunkKeys = entryIndex.keys(id);
+            if (chunkKeys == null)
+                chunkKeys = StructureEntryIndex.keys(entry.getBoundingBox());
+            LongSet keys = regionKeys(chunkKeys);
+
+            // Loaded before removing, so it doesn't get re-added from disk
+            List<Region> locked = lockRegions(sorted(keys));
+            try
+            {
+                entry = entryMap.get(id);
+                if (entry == null)
+                    return null;
 
-        if (entry != null)
-            markDirty();
-        return entry;
+                chunkKeys = entryIndex.keys(id);
+                if (chunkKeys != null && !keys.containsAll(regionKeys(chunkKeys)))
+                    continue; // Moved while we weren't looking
+
+                removeLocked(entry, chunkKeys);
+                markDirty();
+                return entry;
+            }
+            finally
+            {
+                unlock(locked);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry, with all of its regions locked.
+     */
+    protected void removeLocked(Entry entry, @Nullable long[] chunkKeys)
+    {
+        UUID id = entry.getUuid();
+
+        entryMap.remove(id);
+        entryIndex.remove(id);
+        entryRegions.remove(id);
+        if (entry instanceof StructureEntry)
+            structureCounts.computeIfPresent(((StructureEntry) entry).getStructureID(), (structureID, count) -> count > 1 ? count - 1 : null);
+
+        if (chunkKeys != null)
+        {
+            for (long key : regionKeys(chunkKeys))
+            {
+                Region region = regions.get(key);
+                region.entries.remove(id);
+                region.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Marks the regions of an entry to be saved again, after the entry has been changed.
+     */
+    public void markDirty(Entry entry)
+    {
+        long[] chunkKeys = entryIndex.keys(entry.getUuid());
+        if (chunkKeys == null)
+            return;
+
+        for (long key : regionKeys(chunkKeys))
+        {
+            Region region = lockRegion(key);
+            region.dirty = true;
+            region.lock.unlock();
+        }
+
+        markDirty();
     }
 
-    public Set<StructureEntry> getEntriesByID(String id)
+    public int structureCount(String id)
     {
-        return instanceMap.get(id);
+        return structureCounts.getOrDefault(id, 0);
     }
 
     public Stream<ChunkPos> checkAllChunks(Stream<ChunkPos> chunks)
@@ -143,50 +509,277 @@ public class WorldStructureGenerationData extends WorldSavedData
         return chunks.filter(this::checkChunk);
     }
 
+    public boolean isChecked(ChunkPos coords)
+    {
+        return inRegion(coords.x, coords.z, region -> region.checked.get(Region.index(coords.x, coords.z)));
+    }
+
     public boolean checkChunk(ChunkPos coords)
     {
-        boolean added = checkedChunks.add(coords);
-        if (added)
-            markDirty();
-        return added;
+        return inRegion(coords.x, coords.z, region -> check(region, coords, false));
     }
 
     //
     public boolean checkChunkFinal(ChunkPos coords)
     {
-        boolean added = checkedChunksFinal.add(coords);
-        if (added)
-            markDirty();
-        return added;
+        return inRegion(coords.x, coords.z, region -> check(region, coords, true));
+    }
+
+    protected boolean check(Region region, ChunkPos coords, boolean checkFinal)
+    {
+        BitSet set = checkFinal ? region.checkedFinal : region.checked;
+        int index = Region.index(coords.x, coords.z);
+
+        if (set.get(index))
+            return false;
+
+        set.set(index);
+        region.dirty = true;
+        markDirty();
+        return true;
+    }
+
+    protected void readRegion(Region region, NBTTagCompound compound)
+    {
+        for (Entry entry : NBTCompoundObjects.readListFrom(compound, "entries", StructureEntry::new))
+            readRegionEntry(region, entry);
+        for (Entry entry : NBTCompoundObjects.readListFrom(compound, "customEntries", CustomEntry::new))
+            readRegionEntry(region, entry);
+
+        region.checked.or(BitSet.valueOf(compound.getByteArray("checkedChunks")));
+        region.checkedFinal.or(BitSet.valueOf(compound.getByteArray("checkedChunksFinal")));
+    }
+
+    protected void readRegionEntry(Region region, Entry entry)
+    {
+        region.entries.add(entry.getUuid());
+        entryRegions.putIfAbsent(entry.getUuid(), ChunkPos.asLong(region.x, region.z));
+
+        // Entries spanning multiple regions are stored in each of them
+        entryMap.computeIfAbsent(entry.getUuid(), id ->
+        {
+            entryIndex.add(entry);
+            return entry;
+        });
+    }
+
+    protected NBTTagCompound writeRegion(Region region)
+    {
+        NBTTagCompound compound = new NBTTagCompound();
+
+        List<Entry> entries = region.entries.stream().map(entryMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+        NBTCompoundObjects.writeListTo(compound, "entries", entries.stream().filter(e -> e instanceof StructureEntry).collect(Collectors.toList()));
+        NBTCompoundObjects.writeListTo(compound, "customEntries", entries.stream().filter(e -> e instanceof CustomEntry).collect(Collectors.toList()));
+
+        compound.setByteArray("checkedChunks", region.checked.toByteArray());
+        compound.setByteArray("checkedChunksFinal", region.checkedFinal.toByteArray());
+
+        return compound;
+    }
+
+    protected void saveRegion(@Nonnull File directory, Region region) throws IOException
+    {
+        File file = regionFile(directory, region.x, region.z);
+        File tmp = new File(directory, file.getName() + ".tmp");
+
+        try (OutputStream stream = new FileOutputStream(tmp))
+        {
+            CompressedStreamTools.writeCompressed(writeRegion(region), stream);
+        }
+
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Drops the region, which must be locked. Anyone waiting for it will load it again.
+     */
+    protected void unloadRegion(Region region)
+    {
+        region.unloaded = true;
+        regions.remove(ChunkPos.asLong(region.x, region.z), region);
+
+        for (UUID id : region.entries)
+        {
+            entryMap.computeIfPresent(id, (k, entry) ->
+            {
+                if (isAnyRegionLoaded(entryIndex.keys(id)))
+                    return entry;
+
+                entryIndex.remove(id);
+                return null;
+            });
+        }
+    }
+
+    protected boolean isAnyRegionLoaded(@Nullable long[] chunkKeys)
+    {
+        if (chunkKeys != null)
+        {
+            for (LongIterator iterator = regionKeys(chunkKeys).iterator(); iterator.hasNext(); )
+                if (regions.containsKey(iterator.nextLong()))
+                    return true;
+        }
+
+        return false;
     }
 
     @Override
     public void readFromNBT(NBTTagCompound compound)
     {
         entryMap.clear();
-        chunkMap.clear();
-        instanceMap.clear();
-        NBTCompoundObjects.readListFrom(compound, "entries", StructureEntry::new).forEach(this::addEntry);
-        NBTCompoundObjects.readListFrom(compound, "customEntries", CustomEntry::new).forEach(this::addEntry);
+        entryIndex.clear();
+        entryRegions.clear();
+        regions.clear();
+        structureCounts.clear();
+        entryRegionsComplete = true;
+
+        if (compound.hasKey("entries") || compound.hasKey("checkedChunks")) // Legacy, before regions
+        {
+            NBTCompoundObjects.readListFrom(compound, "entries", StructureEntry::new).forEach(this::addEntry);
+            NBTCompoundObjects.readListFrom(compound, "customEntries", CustomEntry::new).forEach(this::addEntry);
+
+            NBTTagLists.intArraysFrom(compound, "checkedChunks").forEach(ints -> checkChunk(new ChunkPos(ints[0], ints[1])));
+            NBTTagLists.intArraysFrom(compound, "checkedChunksFinal").forEach(ints -> checkChunkFinal(new ChunkPos(ints[0], ints[1])));
+
+            return;
+        }
+
+        NBTTagCompound counts = compound.getCompoundTag("structureCounts");
+        for (String id : counts.getKeySet())
+            structureCounts.put(id, counts.getInteger(id));
 
-        checkedChunks.clear();
-        NBTTagLists.intArraysFrom(compound, "checkedChunks").forEach(ints -> checkedChunks.add(new ChunkPos(ints[0], ints[1])));
-        checkedChunksFinal.clear();
-        NBTTagLists.intArraysFrom(compound, "checkedChunksFinal").forEach(ints -> checkedChunksFinal.add(new ChunkPos(ints[0], ints[1])));
+        if (compound.hasKey("entryRegions", Constants.NBT.TAG_INT_ARRAY))
+        {
+            // UUID, region x and z
+            int[] entryRegions = compound.getIntArray("entryRegions");
+            for (int i = 0; i + 5 < entryRegions.length; i += 6)
+            {
+                UUID id = new UUID((long) entryRegions[i] << 32 | entryRegions[i + 1] & 0xFFFFFFFFL, (long) entryRegions[i + 2] << 32 | entryRegions[i + 3] & 0xFFFFFFFFL);
+                this.entryRegions.put(id, ChunkPos.asLong(entryRegions[i + 4], entryRegions[i + 5]));
+            }
+        }
+        else
+            entryRegionsComplete = false; // Index the region files once we know where they are
+
+        // In-memory regions, when we had nowhere else to put them
+        NBTTagList regionList = compound.getTagList("regions", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < regionList.tagCount(); i++)
+        {
+            NBTTagCompound regionCompound = regionList.getCompoundTagAt(i);
+            Region region = new Region(regionCompound.getInteger("x"), regionCompound.getInteger("z"));
+            region.loaded = true;
+            regions.put(ChunkPos.asLong(region.x, region.z), region);
+            readRegion(region, regionCompound);
+            region.dirty = true; // Move to the region directory once we have it
+        }
     }
 
     @Override
     public NBTTagCompound writeToNBT(NBTTagCompound compound)
     {
-        NBTCompoundObjects.writeListTo(compound, "entries", entryMap.values().stream().filter(e -> e instanceof StructureEntry).collect(Collectors.toList()));
-        NBTCompoundObjects.writeListTo(compound, "customEntries", entryMap.values().stream().filter(e -> e instanceof CustomEntry).collect(Collectors.toList()));
+        NBTTagCompound counts = new NBTTagCompound();
+        structureCounts.forEach(counts::setInteger);
+        compound.setTag("structureCounts", counts);
+
+        List<Map.Entry<UUID, Long>> entryRegionList = new ArrayList<>(this.entryRegions.entrySet());
+        int[] entryRegions = new int[entryRegionList.size() * 6];
+        int index = 0;
+        for (Map.Entry<UUID, Long> entry : entryRegionList)
+        {
+            UUID id = entry.getKey();
+            entryRegions[index++] = (int) (id.getMostSignificantBits() >>> 32);
+            entryRegions[index++] = (int) id.getMostSignificantBits();
+            entryRegions[index++] = (int) (id.getLeastSignificantBits() >>> 32);
+            entryRegions[index++] = (int) id.getLeastSignificantBits();
+            entryRegions[index++] = StructureEntryIndex.keyX(entry.getValue());
+            entryRegions[index++] = StructureEntryIndex.keyZ(entry.getValue());
+        }
+        compound.setIntArray("entryRegions", entryRegions);
+
+        File directory = regionDirectory;
+        boolean canSave = directory != null && (directory.isDirectory() || directory.mkdirs());
+        NBTTagList regionList = new NBTTagList();
+
+        // One at a time, so generation can go on in all other regions
+        for (Region region : regions.values())
+        {
+            region.lock.lock();
+            try
+            {
+                if (region.unloaded || !region.loaded) // Gone, or still waiting to be loaded
+                    continue;
+
+                if (canSave && region.dirty)
+                {
+                    try
+                    {
+                        saveRegion(directory, region);
+                        region.dirty = false;
+                    }
+                    catch (IOException e)
+                    {
+                        RecurrentComplex.logger.error(String.format("Error writing structure data region %d, %d", region.x, region.z), e);
+                    }
+                }
+
+                if (region.dirty)
+                {
+                    // Failed or can't write the region, so keep it in here instead
+                    NBTTagCompound regionCompound = writeRegion(region);
+                    regionCompound.setInteger("x", region.x);
+                    regionCompound.setInteger("z", region.z);
+                    regionList.appendTag(regionCompound);
+                }
+                else if (region.lastAccess < saveCycle)
+                {
+                    // Hasn't been touched since the last save, so it can go until it's needed again
+                    unloadRegion(region);
+                }
+            }
+            finally
+            {
+                region.lock.unlock();
+            }
+        }
 
-        NBTTagLists.writeIntArraysTo(compound, "checkedChunks", checkedChunks.stream().map(c -> new int[]{c.x, c.z}).collect(Collectors.toList()));
-        NBTTagLists.writeIntArraysTo(compound, "checkedChunksFinal", checkedChunksFinal.stream().map(c -> new int[]{c.x, c.z}).collect(Collectors.toList()));
+        if (canSave)
+            saveCycle++;
+
+        if (regionList.tagCount() > 0)
+            compound.setTag("regions", regionList);
 
         return compound;
     }
 
+    protected static class Region
+    {
+        public final int x, z;
+
+        // Guards everything below
+        public final ReentrantLock lock = new ReentrantLock();
+        public boolean loaded;
+        public boolean unloaded;
+
+        public final BitSet checked = new BitSet(REGION_SIZE * REGION_SIZE);
+        public final BitSet checkedFinal = new BitSet(REGION_SIZE * REGION_SIZE);
+
+        public final Set<UUID> entries = new HashSet<>();
+
+        public boolean dirty;
+        public int lastAccess;
+
+        public Region(int x, int z)
+        {
+            this.x = x;
+            this.z = z;
+        }
+
+        public static int index(int chunkX, int chunkZ)
+        {
+            return (chunkX & (REGION_SIZE - 1)) | (chunkZ & (REGION_SIZE - 1)) << REGION_SHIFT;
+        }
+    }
+
     public static abstract class Entry implements NBTCompoundObject
     {
         @Nonnull
@@ -248,7 +841,7 @@ public class WorldStructureGenerationData extends WorldSavedData
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
 
-            StructureEntry entry = (StructureEntry) o;
+            Entry entry = (Entry) o;
 
             return uuid.equals(entry.uuid);
         }
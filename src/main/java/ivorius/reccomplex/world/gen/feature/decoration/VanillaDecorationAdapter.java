@@ -129,7 +129,9 @@ public class VanillaDecorationAdapter implements RCBiomeDecorator.Adapter
         {
             RecurrentComplex.logger.error("Error trying to emulate vanilla decoration", e);
         }
-
-        RCWorldgenMonitor.stop();
+        finally
+        {
+            RCWorldgenMonitor.stop();
+        }
     }
 }
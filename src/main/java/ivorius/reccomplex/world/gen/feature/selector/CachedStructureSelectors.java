@@ -5,22 +5,28 @@
 
 package ivorius.reccomplex.world.gen.feature.selector;
 
-import net.minecraft.util.ResourceLocation;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import ivorius.reccomplex.dimensions.DimensionDictionary;
 import net.minecraft.world.WorldProvider;
 import net.minecraft.world.biome.Biome;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
 
 /**
+ * Selectors per dimension and biome ID. Lookups are lock and allocation free; the table is thrown away
+ * when {@link #clear()} is called or the {@link DimensionDictionary} changes.
+ * <p>
  * Created by lukas on 23.09.16.
  */
 public class CachedStructureSelectors<S extends StructureSelector>
 {
-    private Map<Pair<Integer, ResourceLocation>, S> structureSelectors = new HashMap<>();
+    public static final int DEFAULT_BIOME_COUNT = 256;
+
+    // Copy on write, since new dimensions are rare
+    private volatile Int2ObjectMap<AtomicReferenceArray<S>> structureSelectors = new Int2ObjectOpenHashMap<>();
+    private volatile int dictionaryGeneration = DimensionDictionary.getGeneration();
 
     private BiFunction<Biome, WorldProvider, S> selectorSupplier;
 
@@ -31,20 +37,68 @@ public class CachedStructureSelectors<S extends StructureSelector>
 
     public S get(Biome biome, WorldProvider provider)
     {
-        Pair<Integer, ResourceLocation> pair = new ImmutablePair<>(provider.getDimension(), Biome.REGISTRY.getNameForObject(biome));
-        S structureSelector = structureSelectors.get(pair);
+        if (dictionaryGeneration != DimensionDictionary.getGeneration())
+            clear();
+
+        int biomeID = Biome.getIdForBiome(biome);
+        if (biomeID < 0)
+            return selectorSupplier.apply(biome, provider);
+
+        AtomicReferenceArray<S> selectors = selectors(provider.getDimension(), biomeID);
+        S structureSelector = selectors.get(biomeID);
 
-        if (structureSelector == null || !structureSelector.isValid(biome, provider))
+        // Handlers may change their types on the fly without telling the dictionary
+        if (structureSelector == null || (provider instanceof DimensionDictionary.Handler && !structureSelector.isValid(biome, provider)))
         {
             structureSelector = selectorSupplier.apply(biome, provider);
-            structureSelectors.put(pair, structureSelector);
+            selectors.set(biomeID, structureSelector);
         }
 
         return structureSelector;
     }
 
+    private AtomicReferenceArray<S> selectors(int dimension, int biomeID)
+    {
+        AtomicReferenceArray<S> selectors = structureSelectors.get(dimension);
+
+        if (selectors == null || selectors.length() <= biomeID)
+        {
+            synchronized (this)
+            {
+                selectors = structureSelectors.get(dimension);
+
+                if (selectors == null || selectors.length() <= biomeID)
+                {
+                    AtomicReferenceArray<S> grown = new AtomicReferenceArray<>(Math.max(DEFAULT_BIOME_COUNT, biomeID + 1));
+                    if (selectors != null)
+                        for (int i = 0; i < selectors.length(); i++)
+                            grown.set(i, selectors.get(i));
+
+                    Int2ObjectMap<AtomicReferenceArray<S>> copy = new Int2ObjectOpenHashMap<>(structureSelectors);
+                    copy.put(dimension, selectors = grown);
+                    structureSelectors = copy;
+                }
+            }
+        }
+
+        return selectors;
+    }
+
+    /**
+     * Builds the selectors for every registered biome up front, so that the first chunks don't have to.
+     */
+    public void warm(WorldProvider provider)
+    {
+        for (Biome biome : Biome.REGISTRY)
+            get(biome, provider);
+    }
+
     public void clear()
     {
-        structureSelectors.clear();
+        synchronized (this)
+        {
+            dictionaryGeneration = DimensionDictionary.getGeneration();
+            structureSelectors = new Int2ObjectOpenHashMap<>();
+        }
     }
 }
@@ -38,7 +38,7 @@ public class MixingStructureSelector<T extends GenerationType & EnvironmentalSel
     {
         return weightedStructureInfos.keySet().stream()
                 .flatMap(category -> IntStream.range(0, structuresInBiome(category, provider, biome, distanceToSpawn, random)).mapToObj(i -> category))
-                .map(category -> WeightedSelector.select(random, weightedStructureInfos.get(category)))
+                .map(category -> selectOne(random, category))
                 .collect(Collectors.toList());
     }
 
@@ -7,11 +7,14 @@ package ivorius.reccomplex.world.gen.feature.selector;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
 import ivorius.ivtoolkit.random.WeightedSelector;
 import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.dimensions.DimensionDictionary;
+import ivorius.reccomplex.utils.AliasTable;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.generic.WeightedBiomeMatcher;
 import ivorius.reccomplex.world.gen.feature.structure.generic.WeightedDimensionMatcher;
@@ -34,11 +37,15 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
 
     protected Multimap<C, WeightedSelector.SimpleItem<Pair<Structure<?>, T>>> weightedStructureInfos = ArrayListMultimap.create();
     protected TObjectDoubleMap<C> totalWeights = new TObjectDoubleHashMap<>();
+    protected Map<C, AliasTable<Pair<Structure<?>, T>>> aliasTables = new HashMap<>();
 
     public StructureSelector(Map<String, Structure<?>> structures, WorldProvider provider, Biome biome, Class<T> typeClass)
     {
         cachedDimensionTypes.addAll(DimensionDictionary.getDimensionTypes(provider));
 
+        Map<C, List<Pair<Structure<?>, T>>> items = new HashMap<>();
+        Map<C, TDoubleList> weights = new HashMap<>();
+
         for (Map.Entry<String, Structure<?>> entry : structures.entrySet())
         {
             float tweaked = RCConfig.tweakedSpawnRate(entry.getKey());
@@ -50,9 +57,15 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
                 {
                     weightedStructureInfos.put(selection.generationCategory(), new WeightedSelector.SimpleItem<>(generationWeight, Pair.of(entry.getValue(), selection)));
                     totalWeights.adjustOrPutValue(selection.generationCategory(), generationWeight, generationWeight);
+
+                    items.computeIfAbsent(selection.generationCategory(), c -> new ArrayList<>()).add(Pair.of(entry.getValue(), selection));
+                    weights.computeIfAbsent(selection.generationCategory(), c -> new TDoubleArrayList()).add(generationWeight);
                 }
             }
         }
+
+        // Selection happens for every chunk, so make it O(1) rather than walking all structures
+        items.forEach((category, list) -> aliasTables.put(category, new AliasTable<>(list, weights.get(category).toArray())));
     }
 
     public static double generationWeight(WorldProvider provider, Biome biome, PresettedList<WeightedBiomeMatcher> biomeWeights, PresettedList<WeightedDimensionMatcher> dimensionWeights)
@@ -97,7 +110,8 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
     @Nullable
     public Pair<Structure<?>, T> selectOne(Random random, @Nonnull C c, double totalWeight)
     {
-        return totalWeight > 0 ? WeightedSelector.select(random, weightedStructureInfos.get(c)) : null;
+        AliasTable<Pair<Structure<?>, T>> table = aliasTables.get(c);
+        return totalWeight > 0 && table != null ? table.select(random) : null;
     }
 
     public boolean isValid(Biome biome, WorldProvider provider)
@@ -9,6 +9,7 @@ import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericVariableDomain;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.GenerationType;
@@ -57,6 +58,13 @@ public interface Structure<S extends NBTStorable>
     @Nullable
     IvBlockCollection blockCollection();
 
+    @Nullable
+    default BlockStateHistogram blockHistogram()
+    {
+        IvBlockCollection blockCollection = blockCollection();
+        return blockCollection != null ? BlockStateHistogram.of(blockCollection) : null;
+    }
+
     @Nonnull
     GenericVariableDomain declaredVariables();
 
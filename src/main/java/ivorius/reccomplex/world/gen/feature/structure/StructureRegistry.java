@@ -67,6 +67,13 @@ public class StructureRegistry extends SimpleLeveledRegistry<Structure<?>>
         cachedGeneration.clear();
     }
 
+    @Override
+    protected void invalidateCaches(String id)
+    {
+        super.invalidateCaches(id);
+        cachedGeneration.clear();
+    }
+
     private static class StructureData
     {
         public boolean disabled;
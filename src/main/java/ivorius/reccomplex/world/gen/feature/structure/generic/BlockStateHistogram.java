@@ -0,0 +1,156 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.tools.MCRegistry;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.util.Constants;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * How often each block state occurs in a structure, so that questions like 'does it contain any X' don't need
+ * a scan over all its blocks.
+ */
+public class BlockStateHistogram
+{
+    // Identity keys; only filled for collections that are shared read-only, like the ones in the WorldDataCache
+    private static final Cache<IvBlockCollection, BlockStateHistogram> known = CacheBuilder.newBuilder().weakKeys().build();
+
+    protected final Object2IntMap<IBlockState> counts = new Object2IntOpenHashMap<>();
+
+    public static BlockStateHistogram of(@Nonnull IvBlockCollection collection)
+    {
+        BlockStateHistogram histogram = new BlockStateHistogram();
+        collection.area().stream().forEach(pos -> histogram.add(collection.getBlockState(pos), 1));
+        return histogram;
+    }
+
+    /**
+     * @return The histogram of a read-only shared collection, or null if none was remembered.
+     */
+    @Nullable
+    public static BlockStateHistogram known(@Nonnull IvBlockCollection collection)
+    {
+        return known.getIfPresent(collection);
+    }
+
+    /**
+     * Remembers the histogram for a collection that won't be modified anymore.
+     */
+    public static void remember(@Nonnull IvBlockCollection collection, @Nonnull BlockStateHistogram histogram)
+    {
+        known.put(collection, histogram);
+    }
+
+    /**
+     * @return The histogram, or null if any of its blocks isn't registered anymore.
+     */
+    @Nullable
+    public static BlockStateHistogram readFromNBT(@Nonnull NBTTagCompound compound, @Nonnull MCRegistry registry)
+    {
+        NBTTagList blockIDs = compound.getTagList("blocks", Constants.NBT.TAG_STRING);
+        Block[] blocks = new Block[blockIDs.tagCount()];
+        for (int i = 0; i < blocks.length; i++)
+        {
+            if ((blocks[i] = registry.blockFromID(new ResourceLocation(blockIDs.getStringTagAt(i)))) == null)
+                return null;
+        }
+
+        // block index << 4 | metadata
+        int[] states = compound.getIntArray("states");
+        int[] counts = compound.getIntArray("counts");
+        if (states.length != counts.length)
+            return null;
+
+        BlockStateHistogram histogram = new BlockStateHistogram();
+        for (int i = 0; i < states.length; i++)
+        {
+            int blockIndex = states[i] >>> 4;
+            if (blockIndex >= blocks.length)
+                return null;
+
+            //noinspection deprecation
+            histogram.add(blocks[blockIndex].getStateFromMeta(states[i] & 15), counts[i]);
+        }
+
+        return histogram;
+    }
+
+    protected void add(IBlockState state, int count)
+    {
+        counts.put(state, counts.getInt(state) + count);
+    }
+
+    public int count(@Nonnull IBlockState state)
+    {
+        return counts.getInt(state);
+    }
+
+    public int count(@Nonnull Predicate<IBlockState> predicate)
+    {
+        int count = 0;
+        for (Object2IntMap.Entry<IBlockState> entry : counts.object2IntEntrySet())
+        {
+            if (predicate.test(entry.getKey()))
+                count += entry.getIntValue();
+        }
+        return count;
+    }
+
+    public boolean anyMatch(@Nonnull Predicate<IBlockState> predicate)
+    {
+        for (IBlockState state : counts.keySet())
+        {
+            if (predicate.test(state))
+                return true;
+        }
+        return false;
+    }
+
+    @Nonnull
+    public Set<IBlockState> states()
+    {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    public NBTTagCompound writeToNBT(@Nonnull MCRegistry registry)
+    {
+        // Metadata is lossy for states that only differ in properties not stored in it, so those get merged
+        Map<Block, Integer> blockIndices = new LinkedHashMap<>();
+        Map<Integer, Integer> stateCounts = new LinkedHashMap<>();
+
+        for (Object2IntMap.Entry<IBlockState> entry : counts.object2IntEntrySet())
+        {
+            Block block = entry.getKey().getBlock();
+            int blockIndex = blockIndices.computeIfAbsent(block, b -> blockIndices.size());
+            stateCounts.merge(blockIndex << 4 | block.getMetaFromState(entry.getKey()), entry.getIntValue(), Integer::sum);
+        }
+
+        NBTTagList blockIDs = new NBTTagList();
+        for (Block block : blockIndices.keySet())
+            blockIDs.appendTag(new NBTTagString(registry.idFromBlock(block).toString()));
+
+        NBTTagCompound compound = new NBTTagCompound();
+        compound.setTag("blocks", blockIDs);
+        compound.setIntArray("states", stateCounts.keySet().stream().mapToInt(Integer::intValue).toArray());
+        compound.setIntArray("counts", stateCounts.values().stream().mapToInt(Integer::intValue).toArray());
+        return compound;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Already parsed structure files, in a flat binary form that's much faster to read than the original zip.
+ * The JSON is stored as re-serialized after loading, so legacy files don't go through migration every time.
+ * World data and histogram are stored as plain NBT, or as the original gzipped bytes with their size if world data
+ * is kept compressed, so neither needs to be inflated again.
+ * <p>
+ * Entries are keyed by the file's location, size, modification time and a hash of its content, and are simply ignored
+ * (and rewritten) as soon as anything doesn't match. Entries whose file is gone, or that weren't used
+ * for a while, are removed by {@link #prune()}.
+ */
+public class CompiledStructureCache
+{
+    public static final String DIRECTORY_NAME = "reccomplex-cache";
+    public static final String STRUCTURES_DIRECTORY_NAME = "structures";
+    public static final String SUFFIX = ".bin";
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    public static final int MAGIC = 0x52435354; // RCST
+    public static final int FORMAT = 3;
+
+    public static final long UNUSED_DAYS = 30;
+
+    protected static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    protected static final byte WORLD_DATA_PLAIN = 0;
+    protected static final byte WORLD_DATA_COMPRESSED = 1;
+
+    @Nonnull
+    public static Path directory()
+    {
+        return RecurrentComplex.proxy.getDataDirectory().toPath().resolve(DIRECTORY_NAME).resolve(STRUCTURES_DIRECTORY_NAME);
+    }
+
+    @Nonnull
+    public static Path file(@Nonnull Key key)
+    {
+        return directory().resolve(UUID.nameUUIDFromBytes(key.source.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+    }
+
+    /**
+     * @return The compiled entry, or null if there is none that matches the key.
+     */
+    @Nullable
+    public static Entry read(@Nonnull Key key)
+    {
+        Path file = file(key);
+        if (!Files.isRegularFile(file))
+            return null;
+
+        Entry entry;
+
+        // Read in one go and let go of the file right away, so it can be replaced at any time
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file))))
+        {
+            if (!key.equals(readKey(in)))
+                return null;
+
+            String json = readString(in);
+
+            NBTTagCompound worldData = null;
+            CompressedWorldData compressedWorldData = null;
+            byte worldDataType = in.readByte();
+            if (worldDataType == WORLD_DATA_PLAIN)
+                worldData = CompressedStreamTools.read(in);
+            else if (worldDataType == WORLD_DATA_COMPRESSED)
+            {
+                int[] size = {in.readInt(), in.readInt(), in.readInt()};
+                compressedWorldData = CompressedWorldData.read(readBytes(in), size);
+            }
+            else
+                return null;
+
+            NBTTagCompound histogram = in.readBoolean() ? CompressedStreamTools.read(in) : null;
+
+            entry = new Entry(json, worldData, compressedWorldData, histogram);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // Truncated or otherwise broken, it'll be rewritten
+            return null;
+        }
+
+        try
+        {
+            // Mark as used, for pruning
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        catch (IOException ignored)
+        {
+        }
+
+        return entry;
+    }
+
+    /**
+     * Writes the entry, replacing any previous one. Failures are ignored since the file can always be parsed again.
+     */
+    public static void write(@Nonnull Key key, @Nonnull Entry entry)
+    {
+        Path file = file(key);
+
+        try
+        {
+            Files.createDirectories(file.getParent());
+
+            // Write aside and move, so that concurrent or interrupted writes never leave half a file
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TEMP_SUFFIX);
+            try
+            {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+                {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT);
+                    writeString(out, RecurrentComplex.VERSION);
+
+                    writeString(out, key.source);
+                    out.writeLong(key.size);
+                    out.writeLong(key.modified);
+                    out.writeLong(key.hash);
+
+                    writeString(out, entry.json);
+
+                    if (entry.compressedWorldData != null)
+                    {
+                        out.writeByte(WORLD_DATA_COMPRESSED);
+                        for (int length : entry.compressedWorldData.size)
+                            out.writeInt(length);
+                        writeBytes(out, entry.compressedWorldData.bytes);
+                    }
+                    else
+                    {
+                        out.writeByte(WORLD_DATA_PLAIN);
+                        CompressedStreamTools.write(entry.worldData, out);
+                    }
+
+                    out.writeBoolean(entry.histogram != null);
+                    if (entry.histogram != null)
+                        CompressedStreamTools.write(entry.histogram, out);
+                }
+
+                try
+                {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e)
+                {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        catch (IOException e)
+        {
+            RecurrentComplex.logger.debug("Could not write compiled structure for " + key.source, e);
+        }
+    }
+
+    /**
+     * Removes entries of files that don't exist anymore, entries that weren't used for {@link #UNUSED_DAYS} days,
+     * and anything written by other versions.
+     */
+    public static void prune()
+    {
+        Path directory = directory();
+        if (!Files.isDirectory(directory))
+            return;
+
+        long unusedSince = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(UNUSED_DAYS);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+        {
+            for (Path file : files)
+            {
+                try
+                {
+                    if (isStale(file, unusedSince))
+                        Files.deleteIfExists(file);
+                }
+                catch (IOException e)
+                {
+                    RecurrentComplex.logger.debug("Could not prune compiled structure " + file, e);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            RecurrentComplex.logger.debug("Could not prune compiled structures", e);
+        }
+    }
+
+    protected static boolean isStale(Path file, long unusedSince) throws IOException
+    {
+        String name = file.getFileName().toString();
+        boolean unused = Files.getLastModifiedTime(file).toMillis() < unusedSince;
+
+        if (!name.endsWith(SUFFIX))
+            return unused && name.endsWith(TEMP_SUFFIX); // Left over from a crash
+
+        if (unused)
+            return true;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            Key key = readKey(in);
+            return key == null || !sourceExists(key.source);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return true;
+        }
+    }
+
+    protected static boolean sourceExists(String source)
+    {
+        try
+        {
+            URI uri = new URI(source);
+
+            if ("jar".equals(uri.getScheme()))
+            {
+                // Only check the archive; entries in it go once they're unused
+                String archive = uri.getRawSchemeSpecificPart();
+                int separator = archive.indexOf("!/");
+                uri = new URI(separator >= 0 ? archive.substring(0, separator) : archive);
+            }
+
+            return !"file".equals(uri.getScheme()) || Files.exists(Paths.get(uri));
+        }
+        catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return The key the entry was written for, or null if it was written by another version.
+     */
+    @Nullable
+    protected static Key readKey(DataInputStream in) throws IOException
+    {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT
+                || !RecurrentComplex.VERSION.equals(readString(in))) // Serialization may have changed
+            return null;
+
+        return new Key(readString(in), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    protected static String readString(DataInputStream in) throws IOException
+    {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    protected static byte[] readBytes(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Negative length");
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    protected static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        // Not writeUTF, which can't do more than 64K
+        writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+    {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static class Key
+    {
+        public final String source;
+        public final long size;
+        public final long modified;
+        public final long hash;
+
+        public Key(String source, long size, long modified, long hash)
+        {
+            this.source = source;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        @Nonnull
+        public static Key of(@Nonnull Path path) throws IOException
+        {
+            return new Key(path.toUri().toString(), Files.size(path), Files.getLastModifiedTime(path).toMillis(), hash(path));
+        }
+
+        /**
+         * Streams the file through a CRC. Size and modification time miss files replaced with their timestamps kept, e.g. when unpacked.
+         */
+        protected static long hash(@Nonnull Path path) throws IOException
+        {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+
+            try (InputStream in = Files.newInputStream(path))
+            {
+                int read;
+                while ((read = in.read(buffer)) >= 0)
+                    crc.update(buffer, 0, read);
+            }
+
+            return crc.getValue();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return size == key.size && modified == key.modified && hash == key.hash && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = source.hashCode();
+            result = 31 * result + Long.hashCode(size);
+            result = 31 * result + Long.hashCode(modified);
+            result = 31 * result + Long.hashCode(hash);
+            return result;
+        }
+    }
+
+    /**
+     * The contents of a structure file, with the JSON still to be parsed.
+     * Exactly one of worldData and compressedWorldData is set.
+     */
+    public static class Entry
+    {
+        public final String json;
+        @Nullable
+        public final NBTTagCompound worldData;
+        @Nullable
+        public final CompressedWorldData compressedWorldData;
+        @Nullable
+        public final NBTTagCompound histogram;
+
+        public Entry(String json, @Nullable NBTTagCompound worldData, @Nullable CompressedWorldData compressedWorldData, @Nullable NBTTagCompound histogram)
+        {
+            this.json = json;
+            this.worldData = worldData;
+            this.compressedWorldData = compressedWorldData;
+            this.histogram = histogram;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ivorius.reccomplex.utils.ByteArrays;
+import ivorius.reccomplex.world.gen.feature.structure.Structures;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Structure world data kept as the compressed bytes of its structure file, for structures that may never be generated.
+ * Inflated compounds are kept in a bounded cache shared by all structures.
+ */
+public class CompressedWorldData
+{
+    public static final int BYTES_PER_BLOCK = 4;
+
+    private static long maximumWeight = 64L * 1024 * 1024;
+    private static Cache<CompressedWorldData, NBTTagCompound> inflated = build(maximumWeight);
+
+    // Gzipped NBT, as in the structure files
+    protected final byte[] bytes;
+    protected final int[] size;
+
+    protected CompressedWorldData(byte[] bytes, int[] size)
+    {
+        this.bytes = bytes;
+        this.size = size;
+    }
+
+    private static Cache<CompressedWorldData, NBTTagCompound> build(long maximumWeight)
+    {
+        return CacheBuilder.newBuilder()
+                .weakKeys() // Identity keys, and data that is gone doesn't need to be inflated anymore
+                .maximumWeight(maximumWeight)
+                .weigher((CompressedWorldData data, NBTTagCompound compound) -> data.weight())
+                .build();
+    }
+
+    /**
+     * @param maximumWeight The approximate number of bytes inflated compounds may occupy. 0 disables caching.
+     */
+    public static synchronized void setMaximumWeight(long maximumWeight)
+    {
+        if (CompressedWorldData.maximumWeight != maximumWeight)
+        {
+            CompressedWorldData.maximumWeight = maximumWeight;
+            inflated = build(maximumWeight);
+        }
+    }
+
+    /**
+     * @param bytes Gzipped NBT; inflated once to read its metadata.
+     */
+    @Nonnull
+    public static CompressedWorldData read(@Nonnull byte[] bytes) throws IOException
+    {
+        return new CompressedWorldData(bytes, Structures.size(inflate(bytes), new int[]{0, 0, 0}));
+    }
+
+    /**
+     * @param bytes Gzipped NBT.
+     * @param size  The size of the structure, as known from before.
+     */
+    @Nonnull
+    public static CompressedWorldData read(@Nonnull byte[] bytes, @Nonnull int[] size)
+    {
+        return new CompressedWorldData(bytes, size.clone());
+    }
+
+    @Nonnull
+    public static CompressedWorldData compress(@Nonnull NBTTagCompound compound) throws IOException
+    {
+        return new CompressedWorldData(ByteArrays.toByteArray(s -> CompressedStreamTools.writeCompressed(compound, s)),
+                Structures.size(compound, new int[]{0, 0, 0}));
+    }
+
+    protected static NBTTagCompound inflate(byte[] bytes) throws IOException
+    {
+        return CompressedStreamTools.readCompressed(new ByteArrayInputStream(bytes));
+    }
+
+    @Nonnull
+    public int[] size()
+    {
+        return size.clone();
+    }
+
+    public int compressedLength()
+    {
+        return bytes.length;
+    }
+
+    protected int weight()
+    {
+        long weight = (long) size[0] * size[1] * size[2] * BYTES_PER_BLOCK + bytes.length;
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return The inflated compound, shared with all other users. Don't modify it - copy it for that.
+     */
+    @Nonnull
+    public NBTTagCompound inflate()
+    {
+        try
+        {
+            return inflated.get(this, () -> inflate(bytes));
+        }
+        catch (ExecutionException e)
+        {
+            // The bytes were inflated fine once already
+            throw new IllegalStateException("Error inflating structure data", e.getCause());
+        }
+    }
+}
@@ -78,6 +78,11 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public final DependencyExpression dependencies = new DependencyExpression();
 
     public NBTTagCompound worldDataCompound;
+    // Stands in for the compound while that is null
+    @Nullable
+    protected CompressedWorldData compressedWorldData;
+    // Paired with the world data it was computed from, so it's dropped as soon as that is replaced
+    protected volatile Pair<Object, BlockStateHistogram> blockHistogram;
 
     public boolean rotatable;
     public boolean mirrorable;
@@ -140,14 +145,15 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public static void generateTileEntityContents(@Nonnull StructureSpawnContext context, TileEntity tileEntity)
     {
         if (!context.generateAsSource && ItemHandlers.hasModifiable(tileEntity, null))
-            LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(tileEntity, null));
+            LootGenerationHandler.generateAllTags(context, tileEntity, ItemHandlers.getModifiable(tileEntity, null));
     }
 
     @Nonnull
     @Override
     public int[] size()
     {
-        return Structures.size(worldDataCompound, new int[]{0, 0, 0});
+        CompressedWorldData compressed = this.compressedWorldData;
+        return worldDataCompound == null && compressed != null ? compressed.size() : Structures.size(worldDataCompound, new int[]{0, 0, 0});
     }
 
     @Override
@@ -172,7 +178,8 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public void generate(@Nonnull final StructureSpawnContext context, @Nonnull InstanceData instanceData, @Nonnull TransformerMulti foreignTransformer)
     {
         WorldServer world = context.environment.world;
-        IvWorldData worldData = constructWorldData();
+        WorldDataCache.Entry cachedWorldData = cachedWorldData();
+        IvWorldData worldData = cachedWorldData.worldData;
         boolean asSource = context.generateAsSource;
 
         RunTransformer transformer = getRunTransformer(instanceData, foreignTransformer, asSource);
@@ -187,11 +194,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
         BlockPos origin = StructureBoundingBoxes.min(context.boundingBox);
 
-        Map<BlockPos, NBTTagCompound> tileEntityCompounds = new HashMap<>();
-        for (NBTTagCompound tileEntityCompound : worldData.tileEntities) {
-            BlockPos src = RCMover.getTileEntityPos(tileEntityCompound);
-            tileEntityCompounds.put(src, tileEntityCompound);
-        }
+        Map<BlockPos, NBTTagCompound> tileEntityCompounds = cachedWorldData.tileEntities;
 
         if (transformer != null)
             transformer.transformer.transform(transformer.instanceData, Transformer.Phase.BEFORE, context, worldData, transformer);
@@ -223,7 +226,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         if (transformer != null)
             transformer.transformer.transform(transformer.instanceData, Transformer.Phase.AFTER, context, worldData, transformer);
 
-        for (NBTTagCompound entityCompound : worldData.entities) {
+        for (NBTTagCompound entityCompound : cachedWorldData.entities) {
             double[] transformedEntityPos = context.transform.applyOn(getEntityPos(entityCompound), areaSize);
             if (context.includes(new Vec3i(transformedEntityPos[0] + origin.getX(), transformedEntityPos[1] + origin.getY(), transformedEntityPos[2] + origin.getZ()))) {
                 Entity entity = EntityList.createEntityFromNBT(entityCompound, world);
@@ -275,7 +278,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         InstanceData instanceData = new InstanceData();
 
         if (!context.generateAsSource) {
-            IvWorldData worldData = constructWorldData();
+            IvWorldData worldData = cachedWorldData().worldData;
 
             context.environment.variables.fill(instanceData.variableDomain); // Fill with already set vars
             variableDomain.fill(instanceData.variableDomain, context.environment, context.random); // Determine the rest
@@ -320,13 +323,50 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public InstanceData loadInstanceData(@Nonnull StructureLoadContext context, @Nonnull final NBTBase nbt, @Nonnull TransformerMulti transformer)
     {
         InstanceData instanceData = new InstanceData();
-        instanceData.readFromNBT(context, nbt, this.transformer, transformer, constructWorldData());
+        instanceData.readFromNBT(context, nbt, this.transformer, transformer, cachedWorldData().worldData);
         return instanceData;
     }
 
     public IvWorldData constructWorldData()
     {
-        return new IvWorldData(worldDataCompound, RecurrentComplex.specialRegistry.itemHidingMode());
+        return new IvWorldData(worldData(), RecurrentComplex.specialRegistry.itemHidingMode());
+    }
+
+    /**
+     * @return The world data compound, inflating it if it's only kept compressed. Don't modify it - copy it for that.
+     */
+    @Nullable
+    public NBTTagCompound worldData()
+    {
+        CompressedWorldData compressed = this.compressedWorldData;
+        return worldDataCompound == null && compressed != null ? compressed.inflate() : worldDataCompound;
+    }
+
+    /**
+     * @return An object that stays the same as long as the world data does, without inflating it.
+     */
+    @Nullable
+    public Object worldDataIdentity()
+    {
+        return worldDataCompound == null ? compressedWorldData : worldDataCompound;
+    }
+
+    /**
+     * Keeps only the compressed world data; the compound is inflated whenever needed.
+     */
+    public void setCompressedWorldData(@Nullable CompressedWorldData compressedWorldData)
+    {
+        this.worldDataCompound = null;
+        this.compressedWorldData = compressedWorldData;
+    }
+
+    /**
+     * Decoded world data shared with all other users of this structure. Don't modify it - use {@link #constructWorldData()} for that.
+     */
+    @Nonnull
+    public WorldDataCache.Entry cachedWorldData()
+    {
+        return WorldDataCache.get(this);
     }
 
     @Nonnull
@@ -370,7 +410,32 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     @Override
     public IvBlockCollection blockCollection()
     {
-        return constructWorldData().blockCollection;
+        return cachedWorldData().worldData.blockCollection;
+    }
+
+    /**
+     * @return The histogram of the current world data, if it's already known without decoding it.
+     */
+    @Nullable
+    public BlockStateHistogram storedBlockHistogram()
+    {
+        Pair<Object, BlockStateHistogram> blockHistogram = this.blockHistogram;
+        return blockHistogram != null && blockHistogram.getLeft() == worldDataIdentity() ? blockHistogram.getRight() : null;
+    }
+
+    public void setBlockHistogram(@Nullable BlockStateHistogram histogram)
+    {
+        blockHistogram = histogram != null ? Pair.of(worldDataIdentity(), histogram) : null;
+    }
+
+    @Nonnull
+    @Override
+    public BlockStateHistogram blockHistogram()
+    {
+        BlockStateHistogram histogram = storedBlockHistogram();
+        if (histogram == null)
+            setBlockHistogram(histogram = cachedWorldData().histogram);
+        return histogram;
     }
 
     @Nonnull
@@ -397,8 +462,10 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
 
     public GenericStructure copy()
     {
-        return StructureSaveHandler.INSTANCE.fromJSON(StructureSaveHandler.INSTANCE.toJSON(this),
-                worldDataCompound.copy());
+        GenericStructure copy = StructureSaveHandler.INSTANCE.fromJSON(StructureSaveHandler.INSTANCE.toJSON(this),
+                worldData().copy());
+        copy.setBlockHistogram(storedBlockHistogram());
+        return copy;
     }
 
     public static class Serializer implements JsonDeserializer<GenericStructure>, JsonSerializer<GenericStructure>
@@ -485,11 +552,12 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
 
             jsonObject.add("dependencyExpression", context.serialize(structureInfo.dependencies.getExpression()));
 
-            if (!RecurrentComplex.USE_ZIP_FOR_STRUCTURE_FILES && structureInfo.worldDataCompound != null) {
+            NBTTagCompound worldData = !RecurrentComplex.USE_ZIP_FOR_STRUCTURE_FILES ? structureInfo.worldData() : null;
+            if (worldData != null) {
                 if (RecurrentComplex.USE_JSON_FOR_NBT)
-                    jsonObject.add("worldData", context.serialize(structureInfo.worldDataCompound));
+                    jsonObject.add("worldData", context.serialize(worldData));
                 else
-                    jsonObject.addProperty("worldDataBase64", NBTToJson.getBase64FromNBT(structureInfo.worldDataCompound));
+                    jsonObject.addProperty("worldDataBase64", NBTToJson.getBase64FromNBT(worldData));
             }
 
             jsonObject.add("metadata", context.serialize(structureInfo.metadata));
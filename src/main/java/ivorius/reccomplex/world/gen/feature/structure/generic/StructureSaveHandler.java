@@ -9,6 +9,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import ivorius.ivtoolkit.tools.IvFileHelper;
+import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.files.loading.FileLoaderRegistry;
 import ivorius.reccomplex.files.loading.RCFileSuffix;
@@ -40,6 +41,7 @@ public class StructureSaveHandler
 
     public static final String STRUCTURE_INFO_JSON_FILENAME = "structure.json";
     public static final String WORLD_DATA_NBT_FILENAME = "worldData.nbt";
+    public static final String BLOCK_HISTOGRAM_NBT_FILENAME = "blockHistogram.nbt";
 
     public final Gson gson;
 
@@ -94,17 +96,29 @@ public class StructureSaveHandler
     }
 
     public GenericStructure fromZip(ZipInputStream zipInputStream) throws IOException
+    {
+        return fromEntry(readZip(zipInputStream));
+    }
+
+    public CompiledStructureCache.Entry readZip(ZipInputStream zipInputStream) throws IOException
     {
         ZipFinder finder = new ZipFinder();
 
         ZipFinder.Result<String> json = finder.bytes(STRUCTURE_INFO_JSON_FILENAME, String::new);
-        ZipFinder.Result<NBTTagCompound> worldData = finder.bytes(WORLD_DATA_NBT_FILENAME,
-                bytes -> CompressedStreamTools.readCompressed(new ByteArrayInputStream(bytes)));
+        ZipFinder.Result<byte[]> worldData = finder.bytes(WORLD_DATA_NBT_FILENAME, bytes -> bytes);
+        ZipFinder.Result<byte[]> histogram = finder.bytes(BLOCK_HISTOGRAM_NBT_FILENAME, bytes -> bytes);
 
         try
         {
             finder.read(zipInputStream);
-            return fromJSON(json.get(), worldData.get());
+
+            byte[] histogramBytes = histogram.orElse(() -> null);
+            NBTTagCompound histogramCompound = histogramBytes != null ? CompressedStreamTools.readCompressed(new ByteArrayInputStream(histogramBytes)) : null;
+
+            return RCConfig.compressStructureData
+                    // Keep the bytes just as they are in the file
+                    ? new CompiledStructureCache.Entry(json.get(), null, CompressedWorldData.read(worldData.get()), histogramCompound)
+                    : new CompiledStructureCache.Entry(json.get(), CompressedStreamTools.readCompressed(new ByteArrayInputStream(worldData.get())), null, histogramCompound);
         }
         catch (IOException | ZipFinder.MissingEntryException e)
         {
@@ -112,6 +126,26 @@ public class StructureSaveHandler
         }
     }
 
+    public GenericStructure fromEntry(CompiledStructureCache.Entry entry) throws IOException
+    {
+        GenericStructure structure;
+
+        // The entry may have been compiled with another setting
+        if (RCConfig.compressStructureData)
+        {
+            structure = fromJSON(entry.json, null);
+            structure.setCompressedWorldData(entry.compressedWorldData != null ? entry.compressedWorldData : CompressedWorldData.compress(entry.worldData));
+        }
+        else
+            structure = fromJSON(entry.json, entry.worldData != null ? entry.worldData : CompressedWorldData.inflate(entry.compressedWorldData.bytes));
+
+        // Optional; older files don't have it, and it's recomputed if any of its blocks are missing
+        if (entry.histogram != null)
+            structure.setBlockHistogram(BlockStateHistogram.readFromNBT(entry.histogram, RecurrentComplex.specialRegistry.itemHidingMode()));
+
+        return structure;
+    }
+
     public void toZip(Structure<?> structure, ZipOutputStream zipOutputStream) throws IOException
     {
         GenericStructure copy = structure.copyAsGenericStructure();
@@ -120,6 +154,10 @@ public class StructureSaveHandler
         IvZips.addZipEntry(zipOutputStream, STRUCTURE_INFO_JSON_FILENAME, toJSON(copy).getBytes());
         IvZips.addZipEntry(zipOutputStream, WORLD_DATA_NBT_FILENAME, ByteArrays.toByteArray(s -> CompressedStreamTools.writeCompressed(copy.worldDataCompound, s)));
 
+        BlockStateHistogram histogram = structure.blockHistogram();
+        if (histogram != null)
+            IvZips.addZipEntry(zipOutputStream, BLOCK_HISTOGRAM_NBT_FILENAME, ByteArrays.toByteArray(s -> CompressedStreamTools.writeCompressed(histogram.writeToNBT(RecurrentComplex.specialRegistry.itemHidingMode()), s)));
+
         zipOutputStream.close();
     }
 
@@ -130,13 +168,47 @@ public class StructureSaveHandler
             super(StructureSaveHandler.this.suffix, StructureSaveHandler.this.registry);
         }
 
+        @Override
+        public boolean canPrepareConcurrently()
+        {
+            return true;
+        }
+
         @Override
         public GenericStructure read(Path path, String name) throws Exception
         {
+            if (!RCConfig.compileStructureFiles)
+            {
+                try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(path)))
+                {
+                    return fromZip(zip);
+                }
+            }
+
+            CompiledStructureCache.Key key = CompiledStructureCache.Key.of(path);
+            CompiledStructureCache.Entry compiled = CompiledStructureCache.read(key);
+            if (compiled != null)
+            {
+                try
+                {
+                    return fromEntry(compiled);
+                }
+                catch (Exception e)
+                {
+                    RecurrentComplex.logger.debug("Compiled structure is damaged: " + name, e);
+                }
+            }
+
+            CompiledStructureCache.Entry entry;
             try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(path)))
             {
-                return fromZip(zip);
+                entry = readZip(zip);
             }
+
+            GenericStructure structure = fromEntry(entry);
+            // Store it as it would be saved now, so it doesn't need migrating next time
+            CompiledStructureCache.write(key, new CompiledStructureCache.Entry(toJSON(structure), entry.worldData, entry.compressedWorldData, entry.histogram));
+            return structure;
         }
     }
 
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.tools.IvWorldData;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.temp.RCMover;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shared cache of decoded structure world data, so that generating a structure over many chunks doesn't
+ * decode its NBT for every single one of them.
+ * The cached objects are shared between all users and must be treated as read-only.
+ */
+public class WorldDataCache
+{
+    public static final int BYTES_PER_BLOCK = 8;
+    public static final int BYTES_PER_COMPOUND = 512;
+
+    private static long maximumWeight = 256L * 1024 * 1024;
+    private static Cache<GenericStructure, Entry> cache = build(maximumWeight);
+
+    private static Cache<GenericStructure, Entry> build(long maximumWeight)
+    {
+        return CacheBuilder.newBuilder()
+                .weakKeys() // Identity keys, and structures that are gone don't need their data anymore
+                .maximumWeight(maximumWeight)
+                .weigher((GenericStructure structure, Entry entry) -> entry.weight)
+                .build();
+    }
+
+    /**
+     * @param maximumWeight The approximate number of bytes the cache may occupy. 0 disables caching.
+     */
+    public static synchronized void setMaximumWeight(long maximumWeight)
+    {
+        if (WorldDataCache.maximumWeight != maximumWeight)
+        {
+            WorldDataCache.maximumWeight = maximumWeight;
+            cache = build(maximumWeight);
+        }
+    }
+
+    @Nonnull
+    public static Entry get(@Nonnull GenericStructure structure)
+    {
+        Object identity = structure.worldDataIdentity();
+        Cache<GenericStructure, Entry> cache = WorldDataCache.cache;
+
+        Entry entry = cache.getIfPresent(structure);
+        if (entry != null && entry.identity == identity)
+            return entry;
+
+        try
+        {
+            if (entry != null)
+                cache.invalidate(structure); // Compound was swapped out
+
+            BlockStateHistogram histogram = structure.storedBlockHistogram();
+            entry = cache.get(structure, () -> new Entry(identity, structure.worldData(), histogram));
+            return entry.identity == identity ? entry : new Entry(identity, structure.worldData(), histogram);
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public static void invalidate(@Nonnull GenericStructure structure)
+    {
+        cache.invalidate(structure);
+    }
+
+    public static void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    public static class Entry
+    {
+        // The structure's world data identity this was decoded from
+        public final Object identity;
+
+        public final IvWorldData worldData;
+        public final Map<BlockPos, NBTTagCompound> tileEntities;
+        public final List<NBTTagCompound> entities;
+        public final BlockStateHistogram histogram;
+
+        protected final int weight;
+
+        public Entry(Object identity, NBTTagCompound compound, @Nullable BlockStateHistogram histogram)
+        {
+            this.identity = identity;
+            worldData = new IvWorldData(compound, RecurrentComplex.specialRegistry.itemHidingMode());
+
+            Map<BlockPos, NBTTagCompound> tileEntities = new HashMap<>();
+            for (NBTTagCompound tileEntityCompound : worldData.tileEntities)
+                tileEntities.put(RCMover.getTileEntityPos(tileEntityCompound), tileEntityCompound);
+            this.tileEntities = Collections.unmodifiableMap(tileEntities);
+            entities = Collections.unmodifiableList(worldData.entities);
+
+            IvBlockCollection blockCollection = worldData.blockCollection;
+            this.histogram = histogram != null ? histogram : BlockStateHistogram.of(blockCollection);
+            BlockStateHistogram.remember(blockCollection, this.histogram);
+
+            long weight = (long) blockCollection.width * blockCollection.height * blockCollection.length * BYTES_PER_BLOCK
+                    + (long) (worldData.tileEntities.size() + worldData.entities.size()) * BYTES_PER_COMPOUND;
+            this.weight = (int) Math.min(weight, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -6,16 +6,20 @@
 package ivorius.reccomplex.world.gen.feature.structure.generic.generation;
 
 import com.google.gson.*;
+import gnu.trove.list.array.TIntArrayList;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
 import ivorius.ivtoolkit.maze.components.MazeRoom;
 import ivorius.ivtoolkit.random.WeightedSelector;
 import ivorius.ivtoolkit.tools.IvTranslations;
 import ivorius.reccomplex.client.rendering.MazeVisualizationContext;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
 import ivorius.reccomplex.gui.GuiValidityStateIndicator;
 import ivorius.reccomplex.gui.editstructure.gentypes.TableDataSourceMazeGeneration;
 import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.gui.table.datasource.TableDataSource;
 import ivorius.reccomplex.json.JsonUtils;
+import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.Placer;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
@@ -28,7 +32,10 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nullable;
 import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -140,6 +147,40 @@ public class MazeGeneration extends GenerationType implements WeightedSelector.I
         return new TableDataSourceMazeGeneration(navigator, mazeVisualizationContext, delegate, this);
     }
 
+    /**
+     * Transformed component variants, so that mazes don't rebuild every component's rooms, exits and reachability each time.
+     * Variants only keep the geometry; weight and variables depend on the environment and are set by the user.
+     */
+    public static class Cache extends SimpleLeveledRegistry.Module<StructureRegistry>
+    {
+        protected final Map<String, Map<List<Object>, MazeComponentStructure<Connector>>> variants = new ConcurrentHashMap<>();
+
+        public MazeComponentStructure<Connector> variant(@Nullable String structureID, MazeGeneration generation, AxisAlignedTransform2D transform, Environment environment, Collection<Connector> blockedConnections, Supplier<MazeComponentStructure<Connector>> build)
+        {
+            if (structureID == null)
+                return build.get();
+
+            // The environment only changes the geometry through which conditional connectors apply
+            TIntArrayList conditions = new TIntArrayList(generation.mazeComponent.exitPaths.size());
+            generation.mazeComponent.exitPaths.forEach(path -> conditions.add(path.conditionIndex(environment)));
+
+            List<Object> key = Arrays.asList(generation, transform.getRotation(), transform.isMirrorX(), conditions, new HashSet<>(blockedConnections));
+            return variants.computeIfAbsent(structureID, id -> new ConcurrentHashMap<>()).computeIfAbsent(key, k -> build.get());
+        }
+
+        @Override
+        public void invalidate()
+        {
+            variants.clear();
+        }
+
+        @Override
+        public void invalidate(String id)
+        {
+            variants.remove(id);
+        }
+    }
+
     public static class Serializer implements JsonSerializer<MazeGeneration>, JsonDeserializer<MazeGeneration>
     {
         @Override
@@ -0,0 +1,186 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.generation;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import ivorius.ivtoolkit.blocks.BlockSurfacePos;
+import ivorius.reccomplex.dimensions.DimensionDictionary;
+import ivorius.reccomplex.world.RCChunks;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldProvider;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Static generations of one dimension, indexed by the chunk they generate in, or by the residue of their
+ * position modulo their pattern's repeat for patterned ones.
+ */
+public class StaticGenerationIndex
+{
+    public final int dimension;
+    public final BlockPos spawnPos;
+    public final int dictionaryGeneration;
+
+    protected final Long2ObjectMap<List<Pair<Structure<?>, StaticGeneration>>> fixed = new Long2ObjectOpenHashMap<>();
+    protected final List<PatternGroup> patterns = new ArrayList<>();
+
+    public StaticGenerationIndex(@Nonnull Collection<Pair<Structure<?>, StaticGeneration>> statics, @Nonnull WorldProvider provider, @Nonnull BlockPos spawnPos)
+    {
+        this.dimension = provider.getDimension();
+        this.spawnPos = spawnPos;
+        this.dictionaryGeneration = DimensionDictionary.getGeneration();
+
+        Map<Pair<Integer, Integer>, List<Pair<Structure<?>, StaticGeneration>>> groups = new HashMap<>();
+
+        for (Pair<Structure<?>, StaticGeneration> pair : statics)
+        {
+            StaticGeneration info = pair.getRight();
+
+            if (!info.dimensionExpression.test(provider))
+                continue;
+
+            //noinspection ConstantConditions
+            if (info.hasPattern())
+                groups.computeIfAbsent(Pair.of(info.pattern.repeatX, info.pattern.repeatZ), k -> new ArrayList<>()).add(pair);
+            else
+            {
+                BlockSurfacePos pos = info.getPos(spawnPos);
+                fixed.computeIfAbsent(ChunkPos.asLong(pos.x >> 4, pos.z >> 4), k -> new ArrayList<>()).add(pair);
+            }
+        }
+
+        groups.forEach((repeat, list) -> patterns.add(new PatternGroup(repeat.getLeft(), repeat.getRight(), list, spawnPos)));
+    }
+
+    public boolean isValid(@Nonnull WorldProvider provider, @Nonnull BlockPos spawnPos)
+    {
+        return dimension == provider.getDimension()
+                && this.spawnPos.equals(spawnPos)
+                && dictionaryGeneration == DimensionDictionary.getGeneration();
+    }
+
+    @Nonnull
+    public Stream<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> structuresAt(@Nonnull ChunkPos chunkPos)
+    {
+        List<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> found = new ArrayList<>();
+
+        List<Pair<Structure<?>, StaticGeneration>> fixedHere = fixed.get(ChunkPos.asLong(chunkPos.x, chunkPos.z));
+        if (fixedHere != null)
+        {
+            for (Pair<Structure<?>, StaticGeneration> pair : fixedHere)
+                found.add(Triple.of(pair.getLeft(), pair.getRight(), pair.getRight().getPos(spawnPos)));
+        }
+
+        for (PatternGroup group : patterns)
+        {
+            group.collect(chunkPos, pair ->
+            {
+                StaticGeneration info = pair.getRight();
+                //noinspection ConstantConditions
+                RCChunks.repeatIntersections(chunkPos, info.getPos(spawnPos), info.pattern.repeatX, info.pattern.repeatZ)
+                        .forEach(pos -> found.add(Triple.of(pair.getLeft(), info, pos)));
+            });
+        }
+
+        return found.stream();
+    }
+
+    protected static class PatternGroup
+    {
+        public final int repeatX, repeatZ;
+
+        // Sorted by x residue
+        protected final int[] residuesX;
+        protected final int[] residuesZ;
+        protected final List<Pair<Structure<?>, StaticGeneration>> entries = new ArrayList<>();
+
+        public PatternGroup(int repeatX, int repeatZ, List<Pair<Structure<?>, StaticGeneration>> entries, BlockPos spawnPos)
+        {
+            this.repeatX = repeatX;
+            this.repeatZ = repeatZ;
+
+            entries.stream()
+                    .sorted(Comparator.comparingInt(pair -> residue(pair.getRight().getPos(spawnPos).x, repeatX)))
+                    .forEach(this.entries::add);
+
+            residuesX = this.entries.stream().mapToInt(pair -> residue(pair.getRight().getPos(spawnPos).x, repeatX)).toArray();
+            residuesZ = this.entries.stream().mapToInt(pair -> residue(pair.getRight().getPos(spawnPos).z, repeatZ)).toArray();
+        }
+
+        /**
+         * The coordinate modulo the repeat, or the coordinate itself if it doesn't repeat on that axis.
+         */
+        public static int residue(int coord, int repeat)
+        {
+            return repeat > 0 ? Math.floorMod(coord, repeat) : coord;
+        }
+
+        protected static boolean hits(int residue, int chunk, int repeat)
+        {
+            int min = chunk << 4;
+
+            if (repeat <= 0)
+                return residue >> 4 == chunk;
+            if (repeat <= 16)
+                return true;
+
+            int offset = Math.floorMod(residue - min, repeat);
+            return offset < 16;
+        }
+
+        public void collect(ChunkPos chunkPos, Consumer<Pair<Structure<?>, StaticGeneration>> consumer)
+        {
+            int minX = chunkPos.x << 4;
+
+            if (repeatX > 0 && repeatX <= 16)
+                collect(0, entries.size(), chunkPos, consumer);
+            else if (repeatX > 0)
+            {
+                int lo = Math.floorMod(minX, repeatX), hi = lo + 15;
+                if (hi < repeatX)
+                    collect(lowerBound(lo), lowerBound(hi + 1), chunkPos, consumer);
+                else
+                {
+                    collect(lowerBound(lo), entries.size(), chunkPos, consumer);
+                    collect(0, lowerBound(hi - repeatX + 1), chunkPos, consumer);
+                }
+            }
+            else
+                collect(lowerBound(minX), lowerBound(minX + 16), chunkPos, consumer);
+        }
+
+        protected void collect(int from, int to, ChunkPos chunkPos, Consumer<Pair<Structure<?>, StaticGeneration>> consumer)
+        {
+            for (int i = from; i < to; i++)
+            {
+                if (hits(residuesZ[i], chunkPos.z, repeatZ))
+                    consumer.accept(entries.get(i));
+            }
+        }
+
+        protected int lowerBound(int residue)
+        {
+            int lo = 0, hi = residuesX.length;
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (residuesX[mid] < residue)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze;
+
+import ivorius.ivtoolkit.maze.components.MazePredicate;
+import ivorius.ivtoolkit.maze.components.MazeRoom;
+import ivorius.ivtoolkit.maze.components.MorphingMazeComponent;
+import ivorius.ivtoolkit.maze.components.ShiftedMazeComponent;
+import ivorius.reccomplex.RCConfig;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A shared, bounded pool that solves mazes with a timeout. Since the solver loop itself can't be interrupted,
+ * every solve gets a {@link Cancellation} predicate that aborts it from within as soon as it's timed out.
+ * When the queue is full, the generating thread solves the maze itself, still bound by the same timeout.
+ */
+public class MazeSolver
+{
+    public static final int QUEUE_CAPACITY = 64;
+
+    private static final AtomicInteger threadIndex = new AtomicInteger();
+    private static ThreadPoolExecutor executor;
+
+    public static final LongAdder solves = new LongAdder();
+    public static final LongAdder timeouts = new LongAdder();
+    public static final LongAdder solveNanos = new LongAdder();
+    public static final LongAccumulator maxSolveNanos = new LongAccumulator(Math::max, 0);
+
+    protected static synchronized ThreadPoolExecutor executor()
+    {
+        int threads = Math.max(1, RCConfig.mazeSolverThreads);
+
+        if (executor == null)
+        {
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable ->
+            {
+                Thread thread = new Thread(runnable, "ReC Maze Solver #" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        else if (executor.getMaximumPoolSize() != threads)
+        {
+            // Order matters, core may never exceed max
+            if (threads > executor.getMaximumPoolSize())
+            {
+                executor.setMaximumPoolSize(threads);
+                executor.setCorePoolSize(threads);
+            }
+            else
+            {
+                executor.setCorePoolSize(threads);
+                executor.setMaximumPoolSize(threads);
+            }
+        }
+
+        return executor;
+    }
+
+    public static int queueDepth()
+    {
+        ThreadPoolExecutor executor = MazeSolver.executor;
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    public static int activeSolves()
+    {
+        ThreadPoolExecutor executor = MazeSolver.executor;
+        return executor != null ? executor.getActiveCount() : 0;
+    }
+
+    public static void resetMetrics()
+    {
+        solves.reset();
+        timeouts.reset();
+        solveNanos.reset();
+        maxSolveNanos.reset();
+    }
+
+    /**
+     * @param timeout Milliseconds until the solve is given up, or negative for none.
+     * @param solve   Solves the maze, consulting the given predicate with its others.
+     * @throws TimeoutException If the solve took too long.
+     */
+    public static <T, C> T solve(long timeout, @Nonnull Function<MazePredicate<C>, T> solve) throws TimeoutException, ExecutionException, InterruptedException
+    {
+        long start = System.nanoTime();
+        Cancellation<C> cancellation = new Cancellation<>(timeout >= 0, start + TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0)));
+
+        Future<T> future = executor().submit(() -> solve.apply(cancellation));
+
+        try
+        {
+            T result = timeout >= 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+
+            long nanos = System.nanoTime() - start;
+            solves.increment();
+            solveNanos.add(nanos);
+            maxSolveNanos.accumulate(nanos);
+
+            return result;
+        }
+        catch (TimeoutException e)
+        {
+            timeouts.increment();
+            cancellation.cancel();
+            future.cancel(true);
+            throw e;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof CancellationException)
+            {
+                // Cancelled itself before we noticed the timeout
+                timeouts.increment();
+                throw new TimeoutException();
+            }
+            throw e;
+        }
+        catch (InterruptedException e)
+        {
+            cancellation.cancel();
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Never vetoes anything, but aborts the solve by throwing once it's cancelled or past its deadline.
+     */
+    public static class Cancellation<C> implements MazePredicate<C>
+    {
+        protected final boolean hasDeadline;
+        protected final long deadline;
+        protected volatile boolean cancelled;
+
+        public Cancellation(boolean hasDeadline, long deadline)
+        {
+            this.hasDeadline = hasDeadline;
+            this.deadline = deadline;
+        }
+
+        public void cancel()
+        {
+            cancelled = true;
+        }
+
+        public void check()
+        {
+            if (cancelled || Thread.currentThread().isInterrupted() || (hasDeadline && System.nanoTime() - deadline > 0))
+                throw new CancellationException("Maze solve timed out");
+        }
+
+        @Override
+        public boolean canPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+            check();
+            return true;
+        }
+
+        @Override
+        public void willPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public void didPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public void willUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public void didUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public boolean isDirtyConnection(MazeRoom dest, MazeRoom source, C c)
+        {
+            check();
+            return true;
+        }
+    }
+}
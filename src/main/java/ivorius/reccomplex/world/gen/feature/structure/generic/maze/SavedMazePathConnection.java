@@ -61,17 +61,23 @@ public class SavedMazePathConnection implements NBTCompoundObject
         return connector;
     }
 
-    public Map.Entry<MazePassage, Connector> build(Environment environment, ConnectorFactory factory)
+    /**
+     * @return The index of the conditional connector that applies in the environment, or -1 for the default connector.
+     */
+    public int conditionIndex(Environment environment)
     {
-        SavedConnector connector = this.connector;
-        for (ConditionalConnector conditionalConnector : conditionalConnectors)
+        for (int i = 0; i < conditionalConnectors.size(); i++)
         {
-            if (conditionalConnector.expression.test(environment))
-            {
-                connector = conditionalConnector.connector;
-                break;
-            }
+            if (conditionalConnectors.get(i).expression.test(environment))
+                return i;
         }
+        return -1;
+    }
+
+    public Map.Entry<MazePassage, Connector> build(Environment environment, ConnectorFactory factory)
+    {
+        int conditionIndex = conditionIndex(environment);
+        SavedConnector connector = conditionIndex >= 0 ? conditionalConnectors.get(conditionIndex).connector : this.connector;
         return Pair.of(path.build(), connector.toConnector(factory));
     }
 
@@ -38,7 +38,7 @@ public class SimpleConnectors
         @Override
         public boolean accepts(Connector c)
         {
-            return c == null || c == this;
+            return c == null || equals(c);
         }
     }
 
@@ -70,7 +70,7 @@ public class SimpleConnectors
         @Override
         public boolean accepts(Connector c)
         {
-            return c == null || c == partner;
+            return c == null || partner.equals(c);
         }
     }
 }
@@ -116,7 +116,15 @@ public class WorldGenMaze
                 * RCConfig.tweakedSpawnRate(StructureRegistry.INSTANCE.id(info));
         double splitCompWeight = compWeight / transforms.size();
 
-        return transforms.stream().map(t -> transform(info, mazeInfo.mazeComponent, t, compSize, splitCompWeight, factory, environment, blockedConnections));
+        String structureID = StructureRegistry.INSTANCE.id(info);
+        MazeGeneration.Cache cache = StructureRegistry.INSTANCE.module(MazeGeneration.Cache.class);
+
+        return transforms.stream().map(t ->
+        {
+            MazeComponentStructure<Connector> variant = cache.variant(structureID, mazeInfo, t, environment, blockedConnections,
+                    () -> transform(info, mazeInfo.mazeComponent, t, compSize, splitCompWeight, factory, environment, blockedConnections));
+            return new MazeComponentStructure<>(splitCompWeight, structureID, environment.variables, t, variant.rooms, variant.exits, variant.reachability);
+        });
     }
 
     public static MazeComponentStructure<Connector> transform(Structure info, SavedMazeComponent comp, final AxisAlignedTransform2D transform, final int[] size, double weight, ConnectorFactory factory, Environment environment, Collection<Connector> blockedConnections)
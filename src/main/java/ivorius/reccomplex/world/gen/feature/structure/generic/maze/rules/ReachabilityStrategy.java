@@ -17,6 +17,7 @@ import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -191,12 +192,17 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
         Predicate<MazeRoom> roomPlaceable = confiner != null ? ((o) -> confiner.test(o) && !rooms.contains(o)) : rooms::contains;
         Predicate<MazePassage> passagePlaceable = o -> roomPlaceable.test(o.getSource());
 
+        // Abilities can only be used in their own direction, and distances don't change during the search
+        Map<MazeRoom, List<Ability<C>>> abilitiesByShift = abilities.stream().collect(Collectors.groupingBy(ability -> ability.start.getDest()));
+        Map<MazePassage, Double> distances = new HashMap<>();
+        ToDoubleFunction<MazePassage> distance = p -> distances.computeIfAbsent(p, k -> minDistanceSQ(k, right));
+
         Set<MazePassage> visited = Sets.newHashSet(left);
         TreeSet<MazePassage> dirty = Sets.newTreeSet((o1, o2) ->
         {
             int compare;
             // Sort by closest
-            if ((compare = Double.compare(minDistanceSQ(o1, right), minDistanceSQ(o2, right))) != 0) return compare;
+            if ((compare = Double.compare(distance.applyAsDouble(o1), distance.applyAsDouble(o2))) != 0) return compare;
 
             // Arbitrarily sort - different passages can NEVER return 0, otherwise one gets trashed
             if ((compare = compare(o1.getSource().getCoordinates(), o2.getSource().getCoordinates())) != 0)
@@ -215,12 +221,13 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
             MazePassage curNormal = cur.normalize();
 
             // Try each ability (i.e. walk through empty space)
-            for (Ability ability : (Iterable<Ability<C>>) abilities.stream()
-                    .filter(ability -> !visited.contains(ability.destination().add(cur.getSource()))) // Wasn't there
-                    .filter(ability -> ability.start.getDest().equals(curNormal.getDest())) // Shiftable
-                    .filter(ability -> ability.connect(cur.getSource(), roomPlaceable, connector)) // Connectable
-                    ::iterator)
+            for (Ability<C> ability : abilitiesByShift.getOrDefault(curNormal.getDest(), Collections.emptyList())) // Shiftable
             {
+                if (visited.contains(ability.destination().add(cur.getSource()))) // Was there
+                    continue;
+                if (!ability.connect(cur.getSource(), roomPlaceable, connector)) // Not connectable
+                    continue;
+
                 MazePassage dest = ability.destination().add(cur.getSource());
                 if (right.contains(dest))
                     return compileRoute(visited);
@@ -290,20 +297,19 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
         if (stepsReached.size() == connectionPoints.size())
             return true; // Done
 
+        // Openings only change with the maze, so all candidates until the next (un-)placement share them
         Predicate<MazePassage> isDirtyPre = dirtyPassages(maze.exits().keySet());
+        mainConnectionPoint.updateOpenings(isDirtyPre);
+        connectionPoints.forEach(point -> point.updateOpenings(isDirtyPre));
 
-        boolean[] unconnectable = new boolean[connectionPoints.size()];
-        for (int i = 0; i < connectionPoints.size(); i++)
-        {
-            ConnectionPoint point = connectionPoints.get(i);
-            if (point.traversed.stream().noneMatch(isDirtyPre))
-                unconnectable[i] = true; // Has no more openings! It's either reached or given up.
-        }
+        int mainSteps = mainConnectionPoint.order.size();
+        int[] steps = connectionPoints.stream().mapToInt(point -> point.order.size()).toArray();
 
         place(maze, component, true);
 
         final Set<MazeRoom> roomsFromBoth = Sets.union(maze.rooms(), component.rooms());
-        final Set<MazePassage> exitsFromBoth = Sets.union(maze.exits().keySet(), component.exits().keySet());
+        final Set<MazePassage> componentExits = component.exits().keySet();
+        final Set<MazePassage> exitsFromBoth = Sets.union(maze.exits().keySet(), componentExits);
         Predicate<MazePassage> isDirty = dirtyPassages(exitsFromBoth);
 
         boolean canPlace;
@@ -312,6 +318,7 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
         else
         {
             canPlace = true;
+            Set<MazePassage> mainOpenings = null;
             for (int i = 0; i < connectionPoints.size(); i++)
             {
                 ConnectionPoint point = connectionPoints.get(i);
@@ -319,13 +326,19 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
                 if (!point.intersectsRoute(component))
                     continue; // Can reuse since path wasn't changed
 
-                canPlace = stepsReached.containsKey(point) || unconnectable[i] || (point.route = approximateCanReach(
+                if (stepsReached.containsKey(point) || point.openings.isEmpty())
+                    continue; // Has no more openings! It's either reached or given up.
+
+                if (mainOpenings == null)
+                    mainOpenings = mainConnectionPoint.openings(componentExits, mainSteps, isDirty).stream().map(MazePassage::inverse).collect(Collectors.toSet());
+
+                canPlace = (point.route = approximateCanReach(
                         roomsFromBoth,
                         traversalAbilities,
                         Arrays.asList(maze, component),
                         // Use getSource here since we need to have been on the other side if we want to connect
-                        point.traversed.stream().filter(isDirty).collect(Collectors.toSet()),
-                        mainConnectionPoint.traversed.stream().filter(isDirty).map(MazePassage::inverse).collect(Collectors.toSet()),
+                        point.openings(componentExits, steps[i], isDirty),
+                        mainOpenings,
                         point.traversed,
                         confiner,
                         (c, p) -> connectionStrategy.connect(p, exitFromEither(maze, component, p.inverse()), c) > 0)) != null;
@@ -350,6 +363,7 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
     public void willPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
     {
         place(maze, component, false);
+        invalidateOpenings();
 
         connectionPoints.stream()
                 .filter(p -> p.intersectsRoute(component))
@@ -364,7 +378,14 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
     @Override
     public void willUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
     {
+        invalidateOpenings();
+    }
 
+    protected void invalidateOpenings()
+    {
+        if (mainConnectionPoint != null)
+            mainConnectionPoint.openings = null;
+        connectionPoints.forEach(point -> point.openings = null);
     }
 
     protected void place(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component, boolean simulate)
@@ -402,6 +423,7 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
     public void didUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
     {
         unplace(maze, component, false);
+        invalidateOpenings();
     }
 
     protected void unplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component, boolean simulate)
@@ -587,6 +609,9 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
 
         public Set<MazeRoom> route = null;
 
+        // Traversed passages still open into the maze before the current candidate, or null if outdated
+        public Set<MazePassage> openings = null;
+
         @SafeVarargs
         public ConnectionPoint(Collection<MazePassage>... points)
         {
@@ -598,6 +623,23 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
             traversed.removeAll(order.remove(order.size() - 1));
         }
 
+        public void updateOpenings(Predicate<MazePassage> isDirty)
+        {
+            if (openings == null)
+                openings = traversed.stream().filter(isDirty).collect(Collectors.toSet());
+        }
+
+        /**
+         * @return The openings after a simulated placement, given the step count before it.
+         */
+        public Set<MazePassage> openings(Set<MazePassage> componentExits, int steps, Predicate<MazePassage> isDirty)
+        {
+            Set<MazePassage> openings = this.openings.stream().filter(p -> !componentExits.contains(p)).collect(Collectors.toSet());
+            if (order.size() > steps)
+                order.get(order.size() - 1).stream().filter(isDirty).forEach(openings::add);
+            return openings;
+        }
+
         public boolean intersectsRoute(ShiftedMazeComponent<?, C> component)
         {
             return route == null || component.rooms().stream().anyMatch(r -> route.contains(r));
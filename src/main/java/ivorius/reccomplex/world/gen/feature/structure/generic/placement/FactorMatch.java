@@ -23,7 +23,6 @@ import ivorius.reccomplex.utils.IntegerRanges;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
 import ivorius.reccomplex.utils.expression.BlockExpression;
 import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
-import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -31,9 +30,7 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nullable;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -60,20 +57,59 @@ public class FactorMatch extends GenericPlacer.Factor
         this.requiredConformity = requiredConformity;
     }
 
-    protected float weight(WorldCache cache, Set<? extends BlockPos> sources, float needed)
+    /**
+     * @return For every candidate y (indexed from minY), the number of sources that match when lifted by y.
+     * Candidates that fail more than failChances times are dropped, and end up with an incomplete count.
+     */
+    protected int[] matchCounts(WorldCache cache, Collection<Column> columns, BitSet candidates, int minY, int failChances)
     {
-        int failChances = (int) (sources.size() * (1f - needed));
-        int matched = 0;
+        int[] matched = new int[candidates.length()];
+        int[] failed = new int[candidates.length()];
+        BitSet alive = (BitSet) candidates.clone();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
 
-        for (BlockPos pos : sources)
+        for (Column column : columns)
         {
-            if (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)))
-                matched++;
-            else if (--failChances < 0)
-                break;  // Already lost
+            if (alive.isEmpty())
+                break; // Already lost everywhere
+
+            // Every world block is evaluated at most once, no matter how many source / y combinations hit it
+            BitSet known = new BitSet(), matches = new BitSet();
+            int baseY = minY + column.minSourceY;
+
+            for (int sourceY : column.sourceYs)
+            {
+                for (int i = alive.nextSetBit(0); i >= 0; i = alive.nextSetBit(i + 1))
+                {
+                    int index = i + sourceY - column.minSourceY;
+
+                    if (!known.get(index))
+                    {
+                        known.set(index);
+                        pos.setPos(column.x, baseY + index, column.z);
+                        if (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)))
+                            matches.set(index);
+                    }
+
+                    if (matches.get(index))
+                        matched[i]++;
+                    else if (++failed[i] > failChances)
+                        alive.clear(i); // Already lost
+                }
+            }
         }
 
-        return failChances >= 0 ? (float) matched / sources.size() : 0;
+        return matched;
+    }
+
+    protected static int failChances(int sources, float needed)
+    {
+        return (int) (sources * (1f - needed));
+    }
+
+    protected float conformity(int matched, int sources, float needed)
+    {
+        return sources - matched <= failChances(sources, needed) ? (float) matched / sources : 0;
     }
 
     @SideOnly(Side.CLIENT)
@@ -93,12 +129,24 @@ public class FactorMatch extends GenericPlacer.Factor
 
         int[] size = StructureBoundingBoxes.size(context.boundingBox);
         BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
-        Set<BlockPos.MutableBlockPos> sources = BlockAreas.streamMutablePositions(blockCollection.area())
+        Set<BlockPos> sources = BlockAreas.streamMutablePositions(blockCollection.area())
                 .filter(p -> sourceMatcher.evaluate(() -> blockCollection.getBlockState(p)))
-                .map(p -> new BlockPos.MutableBlockPos(context.transform.apply(p, size).add(lowerCoord.getX(), 0, lowerCoord.getZ())))
+                .map(p -> context.transform.apply(p, size).add(lowerCoord.getX(), 0, lowerCoord.getZ()))
                 .collect(Collectors.toSet());
+        Collection<Column> columns = Column.of(sources);
+
+        List<IntegerRange> ranges = considerable.streamSections(null, true).collect(Collectors.toList());
+        if (ranges.isEmpty())
+            return consideration;
+
+        int minY = ranges.stream().mapToInt(IntegerRange::getMin).min().getAsInt();
+        BitSet candidates = new BitSet();
+        for (IntegerRange range : ranges)
+            candidates.set(range.getMin() - minY, range.getMax() - minY + 1);
 
-        for (IntegerRange range : (Iterable<IntegerRange>) considerable.streamSections(null, true)::iterator)
+        int[] matched = matchCounts(cache, columns, candidates, minY, failChances(sources.size(), requiredConformity));
+
+        for (IntegerRange range : ranges)
         {
             Float curConformity = null;
             int lastY = range.getMax();
@@ -106,12 +154,7 @@ public class FactorMatch extends GenericPlacer.Factor
 
             for (int y = lastY; y >= end; y--)
             {
-                int finalY = y;
-                sources.forEach(p -> p.move(EnumFacing.UP, finalY));
-
-                float conformity = weight(cache, sources, requiredConformity);
-
-                sources.forEach(p -> p.move(EnumFacing.DOWN, finalY));
+                float conformity = conformity(matched[y - minY], sources.size(), requiredConformity);
 
                 if (curConformity == null)
                 {
@@ -134,6 +177,34 @@ public class FactorMatch extends GenericPlacer.Factor
         return consideration;
     }
 
+    /**
+     * All sources sharing one world column.
+     */
+    protected static class Column
+    {
+        public final int x, z;
+        public final int[] sourceYs;
+        public final int minSourceY;
+
+        public Column(int x, int z, int[] sourceYs)
+        {
+            this.x = x;
+            this.z = z;
+            this.sourceYs = sourceYs;
+            this.minSourceY = Arrays.stream(sourceYs).min().orElse(0);
+        }
+
+        public static Collection<Column> of(Collection<BlockPos> sources)
+        {
+            Map<Pair<Integer, Integer>, List<BlockPos>> byColumn = sources.stream()
+                    .collect(Collectors.groupingBy(p -> Pair.of(p.getX(), p.getZ())));
+
+            return byColumn.entrySet().stream()
+                    .map(e -> new Column(e.getKey().getLeft(), e.getKey().getRight(), e.getValue().stream().mapToInt(BlockPos::getY).toArray()))
+                    .collect(Collectors.toList());
+        }
+    }
+
     public static class Serializer implements JsonSerializer<FactorMatch>, JsonDeserializer<FactorMatch>
     {
         @Override
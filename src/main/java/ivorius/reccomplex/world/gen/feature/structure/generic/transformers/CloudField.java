@@ -0,0 +1,168 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
+
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Cloud densities by source position. Positions within the given bounds are kept in a flat array;
+ * anything outside (or everything, if there are no bounds) goes into a map.
+ * <p>
+ * Every position in the cloud has a positive density; 0 means it's not part of the cloud.
+ */
+public class CloudField
+{
+    // 64 MB of floats
+    public static final long MAX_DENSE_CELLS = 1 << 24;
+
+    @Nullable
+    protected final int[] origin;
+    @Nullable
+    protected final int[] size;
+    @Nullable
+    protected final float[] dense;
+    protected int denseCount;
+
+    protected final TObjectDoubleMap<BlockPos> sparse = new TObjectDoubleHashMap<>();
+
+    protected CloudField(@Nullable int[] origin, @Nullable int[] size)
+    {
+        this.origin = origin;
+        this.size = size;
+        this.dense = size != null ? new float[size[0] * size[1] * size[2]] : null;
+    }
+
+    public CloudField()
+    {
+        this(null, null);
+    }
+
+    /**
+     * @return A field that's dense within the bounds, or sparse if they're too big.
+     */
+    @Nonnull
+    public static CloudField within(@Nonnull int[] origin, @Nonnull int[] size)
+    {
+        long cells = (long) size[0] * size[1] * size[2];
+        return cells > 0 && cells <= MAX_DENSE_CELLS
+                ? new CloudField(origin.clone(), size.clone())
+                : new CloudField();
+    }
+
+    /**
+     * @return The index in the dense array, or -1 if the position is stored sparsely.
+     */
+    public int index(int x, int y, int z)
+    {
+        if (size == null)
+            return -1;
+
+        x -= origin[0];
+        y -= origin[1];
+        z -= origin[2];
+
+        if (x < 0 || y < 0 || z < 0 || x >= size[0] || y >= size[1] || z >= size[2])
+            return -1;
+
+        return (x * size[1] + y) * size[2] + z;
+    }
+
+    public BlockPos.MutableBlockPos position(int index, BlockPos.MutableBlockPos pos)
+    {
+        //noinspection ConstantConditions
+        int layer = size[1] * size[2];
+        return pos.setPos(origin[0] + index / layer, origin[1] + (index % layer) / size[2], origin[2] + index % size[2]);
+    }
+
+    public double get(int index)
+    {
+        //noinspection ConstantConditions
+        return dense[index];
+    }
+
+    public double get(@Nonnull BlockPos pos)
+    {
+        int index = index(pos.getX(), pos.getY(), pos.getZ());
+        return index >= 0 ? get(index) : sparse.get(pos);
+    }
+
+    public boolean containsKey(@Nonnull BlockPos pos)
+    {
+        return get(pos) > 0;
+    }
+
+    public void put(int index, double density)
+    {
+        //noinspection ConstantConditions
+        if (dense[index] <= 0)
+            denseCount++;
+        // Never store 0 for something that's in the cloud
+        dense[index] = Math.max((float) density, Float.MIN_VALUE);
+    }
+
+    public void put(@Nonnull BlockPos pos, double density)
+    {
+        int index = index(pos.getX(), pos.getY(), pos.getZ());
+        if (index >= 0)
+            put(index, density);
+        else
+            sparse.put(pos.toImmutable(), Math.max(density, Float.MIN_VALUE));
+    }
+
+    public int size()
+    {
+        return denseCount + sparse.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * @param consumer Gets a position that's only valid during the call.
+     */
+    public void forEach(@Nonnull Consumer consumer)
+    {
+        if (dense != null && denseCount > 0)
+        {
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            for (int i = 0; i < dense.length; i++)
+            {
+                if (dense[i] > 0)
+                    consumer.accept(position(i, pos), dense[i]);
+            }
+        }
+
+        sparse.forEachEntry((pos, density) ->
+        {
+            consumer.accept(pos, density);
+            return true;
+        });
+    }
+
+    @Nonnull
+    public Stream<BlockPos> positions()
+    {
+        Stream<BlockPos> dense = this.dense != null && denseCount > 0
+                ? IntStream.range(0, this.dense.length).filter(i -> this.dense[i] > 0).mapToObj(i -> position(i, new BlockPos.MutableBlockPos()).toImmutable())
+                : Stream.empty();
+        return Stream.concat(dense, sparse.keySet().stream());
+    }
+
+    @FunctionalInterface
+    public interface Consumer
+    {
+        void accept(BlockPos pos, double density);
+    }
+}
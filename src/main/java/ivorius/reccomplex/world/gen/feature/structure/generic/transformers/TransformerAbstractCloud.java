@@ -5,9 +5,7 @@
 
 package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
 
-import com.google.common.collect.Sets;
-import gnu.trove.map.TObjectDoubleMap;
-import gnu.trove.map.hash.TObjectDoubleHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 import ivorius.ivtoolkit.blocks.BlockAreas;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.blocks.IvBlockCollection;
@@ -17,6 +15,7 @@ import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.ivtoolkit.tools.NBTTagLists;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
 import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLiveContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
@@ -27,6 +26,7 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
 import java.util.*;
@@ -37,6 +37,9 @@ import java.util.function.BiPredicate;
  */
 public abstract class TransformerAbstractCloud<S extends TransformerAbstractCloud.InstanceData> extends Transformer<S>
 {
+    // How far past the structure a cloud is kept densely, at most
+    public static final int MAX_DENSE_CLOUD_REACH = 32;
+
     public TransformerAbstractCloud(@Nonnull String id)
     {
         super(id);
@@ -71,14 +74,18 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         return matches(instanceData, state);
     }
 
-    public TObjectDoubleMap<BlockPos> buildCloud(S instanceData, IvWorldData worldData, StructurePrepareContext context, TransformerMulti transformer, TransformerMulti.InstanceData transformerInstanceData)
+    public CloudField buildCloud(S instanceData, IvWorldData worldData, StructurePrepareContext context, TransformerMulti transformer, TransformerMulti.InstanceData transformerInstanceData)
     {
         Random random = context.random;
         Environment environment = context.environment;
         BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
         int[] strucSize = new int[]{worldData.blockCollection.width, worldData.blockCollection.height, worldData.blockCollection.length};
 
-        TObjectDoubleMap<BlockPos> cloud = new TObjectDoubleHashMap<>();
+        // Clouds only grow from matching blocks
+        BlockStateHistogram histogram = BlockStateHistogram.known(worldData.blockCollection);
+        if (histogram != null && !histogram.anyMatch(state -> matches(instanceData, state)))
+            return new CloudField();
+
         BlurredValueField blurredValueField = new BlurredValueField(strucSize);
 
         int gridCoords = 1;
@@ -88,23 +95,14 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         for (int i = 0; i < values; i++)
             blurredValueField.addValue(1 + (random.nextFloat() - random.nextFloat()) * (float) cloudExpansionRandomization() / 100f, random);
 
-        BlockAreas.mutablePositions(worldData.blockCollection.area()).forEach(pos ->
-        {
-            IBlockState state = worldData.blockCollection.getBlockState(pos);
-            BlockPos worldCoord = context.transform.apply(pos, strucSize).add(lowerCoord);
-            if (matches(instanceData, state) && canPenetrate(environment, worldData, worldCoord, 1, transformer, transformerInstanceData))
-                cloud.put(pos.toImmutable(), 1);
-        });
-
         double expansionDistance = cloudExpansionDistance();
-        BlockPos.MutableBlockPos sidePos = new BlockPos.MutableBlockPos();
-        BlockPos.MutableBlockPos sideWorldCoord = new BlockPos.MutableBlockPos();
+        boolean expands = expansionDistance > 0.000001;
 
-        if (expansionDistance > 0.000001)
+        // The code below will be called _often_, so let's cache the divisions
+        double[] sideFalloffs = new double[6];
+        List<EnumFacing> checkSides = new ArrayList<>();
+        if (expands)
         {
-            // The code below will be called _often_, so let's cache the divisions
-            double[] sideFalloffs = new double[6];
-            List<EnumFacing> checkSides = new ArrayList<>();
             for (EnumFacing side : EnumFacing.values())
             {
                 double sideExpansionDistance = cloudExpansionDistance(side);
@@ -115,32 +113,106 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
                     sideFalloffs[side.getIndex()] = sideFalloff;
                 }
             }
+        }
+
+        // Densely store the structure and as far as the cloud is expected to expand; anything beyond is still kept sparsely
+        double minFieldValue = 1 - cloudExpansionRandomization() / 100;
+        int[] cloudOrigin = new int[3];
+        int[] cloudSize = strucSize.clone();
+        for (EnumFacing side : checkSides)
+        {
+            int reach = minFieldValue > 0.000001
+                    ? (int) Math.min(Math.ceil(1 / (sideFalloffs[side.getIndex()] * minFieldValue)), MAX_DENSE_CLOUD_REACH)
+                    : MAX_DENSE_CLOUD_REACH;
+            int axis = side.getAxis().ordinal();
+            if (side.getAxisDirection() == EnumFacing.AxisDirection.NEGATIVE)
+                cloudOrigin[axis] -= reach;
+            cloudSize[axis] += reach;
+        }
+
+        CloudField cloud = CloudField.within(cloudOrigin, cloudSize);
 
-            visitRecursively(Sets.newHashSet(cloud.keySet()), (changed, pos) ->
+        BlockAreas.mutablePositions(worldData.blockCollection.area()).forEach(pos ->
+        {
+            IBlockState state = worldData.blockCollection.getBlockState(pos);
+            BlockPos worldCoord = context.transform.apply(pos, strucSize).add(lowerCoord);
+            if (matches(instanceData, state) && canPenetrate(environment, worldData, worldCoord, 1, transformer, transformerInstanceData))
+                cloud.put(pos, 1);
+        });
+
+        if (expands)
+        {
+            IntArrayFIFOQueue denseChanged = new IntArrayFIFOQueue();
+            BitSet denseQueued = new BitSet();
+            Set<BlockPos> sparseChanged = new LinkedHashSet<>(); // Only for what's outside the dense part
+
+            cloud.forEach((pos, density) ->
             {
-                double density = cloud.get(pos);
+                int index = cloud.index(pos.getX(), pos.getY(), pos.getZ());
+                if (index >= 0)
+                {
+                    denseChanged.enqueue(index);
+                    denseQueued.set(index);
+                }
+                else
+                    sparseChanged.add(pos);
+            });
+
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            BlockPos.MutableBlockPos sidePos = new BlockPos.MutableBlockPos();
+            BlockPos.MutableBlockPos sideWorldCoord = new BlockPos.MutableBlockPos();
+
+            while (!denseChanged.isEmpty() || !sparseChanged.isEmpty())
+            {
+                double density;
+                if (!denseChanged.isEmpty())
+                {
+                    int index = denseChanged.dequeueInt();
+                    denseQueued.clear(index);
+                    cloud.position(index, pos);
+                    density = cloud.get(index);
+                }
+                else
+                {
+                    Iterator<BlockPos> iterator = sparseChanged.iterator();
+                    pos.setPos(iterator.next());
+                    iterator.remove();
+                    density = cloud.get(pos);
+                }
 
                 for (EnumFacing side : checkSides)
                 {
                     double sideFalloff = sideFalloffs[side.getIndex()];
 
                     IvMutableBlockPos.offset(pos, sidePos, side);
+                    int sideIndex = cloud.index(sidePos.getX(), sidePos.getY(), sidePos.getZ());
 
                     double sideDensity = density - sideFalloff * blurredValueField.getValue(sidePos.getX(), sidePos.getY(), sidePos.getZ());
-                    if (sideDensity <= 0 || cloud.get(sidePos) >= sideDensity - 0.00001)
+                    if (sideDensity <= 0 || (sideIndex >= 0 ? cloud.get(sideIndex) : cloud.get(sidePos)) >= sideDensity - 0.00001)
                         continue;
 
                     IvMutableBlockPos.add(context.transform.applyOn(sidePos, sideWorldCoord, strucSize), lowerCoord);
                     if (!canPenetrate(environment, worldData, sideWorldCoord, sideDensity, transformer, transformerInstanceData))
                         continue;
 
-                    BlockPos immutableSidePos = sidePos.toImmutable();
-
-                    cloud.put(immutableSidePos, sideDensity);
-                    changed.add(immutableSidePos);
+                    if (sideIndex >= 0)
+                    {
+                        cloud.put(sideIndex, sideDensity);
+                        if (!denseQueued.get(sideIndex))
+                        {
+                            denseChanged.enqueue(sideIndex);
+                            denseQueued.set(sideIndex);
+                        }
+                    }
+                    else
+                    {
+                        BlockPos immutableSidePos = sidePos.toImmutable();
+
+                        cloud.put(immutableSidePos, sideDensity);
+                        sparseChanged.add(immutableSidePos);
+                    }
                 }
-                return true;
-            });
+            }
         }
 
         return cloud;
@@ -172,11 +244,10 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
             BlockPos.MutableBlockPos worldCoord = new BlockPos.MutableBlockPos();
-            instanceData.cloud.forEachEntry((sourcePos, density) ->
+            instanceData.cloud.forEach((sourcePos, density) ->
             {
                 IvMutableBlockPos.add(context.transform.applyOn(sourcePos, worldCoord, areaSize), lowerCoord);
                 transformBlock(instanceData, phase, context, sourcePos, worldCoord, worldData.blockCollection.getBlockState(sourcePos), density);
-                return true;
             });
         }
     }
@@ -189,17 +260,48 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
 
     public static class InstanceData implements NBTStorable
     {
-        public TObjectDoubleMap<BlockPos> cloud = new TObjectDoubleHashMap<>();
+        public static final int DENSITY_STEPS = 255;
+
+        public CloudField cloud = new CloudField();
 
         public void readFromNBT(NBTBase base)
         {
             NBTTagCompound compound = base instanceof NBTTagCompound ? (NBTTagCompound) base : new NBTTagCompound();
-            NBTTagLists.compoundsFrom(compound, "cloud").forEach(cloudCompound ->
+
+            if (compound.hasKey("cloudCells", Constants.NBT.TAG_INT_ARRAY))
+                readCompact(compound);
+            else
             {
-                BlockPos pos = BlockPositions.readFromNBT("particle", cloudCompound);
-                if (pos != null)
-                    cloud.put(pos, cloudCompound.getDouble("density"));
-            });
+                // Legacy, one compound per particle
+                NBTTagLists.compoundsFrom(compound, "cloud").forEach(cloudCompound ->
+                {
+                    BlockPos pos = BlockPositions.readFromNBT("particle", cloudCompound);
+                    if (pos != null)
+                        cloud.put(pos, cloudCompound.getDouble("density"));
+                });
+            }
+        }
+
+        protected void readCompact(NBTTagCompound compound)
+        {
+            int[] origin = compound.getIntArray("cloudOrigin");
+            int[] size = compound.getIntArray("cloudSize");
+            int[] cells = compound.getIntArray("cloudCells");
+            byte[] densities = compound.getByteArray("cloudDensities");
+            double densityScale = compound.getDouble("cloudDensityScale") / DENSITY_STEPS;
+
+            if (cells.length == 0 || origin.length != 3 || size.length != 3 || densities.length != cells.length)
+                return;
+
+            // Same indexing as the cloud field
+            cloud = CloudField.within(origin, size);
+            int layer = size[1] * size[2];
+            for (int i = 0; i < cells.length; i++)
+            {
+                int cell = cells[i];
+                cloud.put(new BlockPos(origin[0] + cell / layer, origin[1] + (cell % layer) / size[2], origin[2] + cell % size[2]),
+                        (densities[i] & 0xFF) * densityScale);
+            }
         }
 
         @Override
@@ -207,18 +309,88 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         {
             NBTTagCompound compound = new NBTTagCompound();
 
-            List<NBTTagCompound> cloudCompounds = new ArrayList<>();
-            cloud.forEachEntry((pos, density) ->
+            if (!writeCompact(compound))
             {
-                NBTTagCompound cloudCompound = new NBTTagCompound();
-                BlockPositions.writeToNBT("particle", pos, cloudCompound);
-                cloudCompound.setDouble("density", density);
-                cloudCompounds.add(cloudCompound);
-                return true;
-            });
-            NBTTagLists.writeTo(compound, "cloud", cloudCompounds);
+                List<NBTTagCompound> cloudCompounds = new ArrayList<>();
+                cloud.forEach((pos, density) ->
+                {
+                    NBTTagCompound cloudCompound = new NBTTagCompound();
+                    BlockPositions.writeToNBT("particle", pos, cloudCompound);
+                    cloudCompound.setDouble("density", density);
+                    cloudCompounds.add(cloudCompound);
+                });
+                NBTTagLists.writeTo(compound, "cloud", cloudCompounds);
+            }
 
             return compound;
         }
+
+        /**
+         * Writes particles as indices into the cloud's bounds, with densities quantized to bytes.
+         * Densities are only used to grow the cloud, so the precision lost here doesn't matter once it's built.
+         *
+         * @return False if the cloud's bounds are too large to be indexed.
+         */
+        protected boolean writeCompact(NBTTagCompound compound)
+        {
+            int[] min = new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+            int[] max = new int[]{Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+            double[] maxDensity = new double[1];
+            cloud.forEach((pos, density) ->
+            {
+                min[0] = Math.min(min[0], pos.getX());
+                min[1] = Math.min(min[1], pos.getY());
+                min[2] = Math.min(min[2], pos.getZ());
+                max[0] = Math.max(max[0], pos.getX());
+                max[1] = Math.max(max[1], pos.getY());
+                max[2] = Math.max(max[2], pos.getZ());
+                maxDensity[0] = Math.max(maxDensity[0], density);
+            });
+
+            int[] origin = new int[3];
+            int[] size = new int[3];
+            if (!cloud.isEmpty())
+            {
+                long volume = 1;
+                for (int i = 0; i < 3; i++)
+                {
+                    origin[i] = min[i];
+                    size[i] = max[i] - min[i] + 1;
+                    volume *= size[i];
+                }
+
+                if (volume > Integer.MAX_VALUE)
+                    return false;
+            }
+
+            double densityScale = maxDensity[0] > 0 ? maxDensity[0] : 1;
+
+            // Sorted by cell, which compresses a lot better
+            long[] particles = new long[cloud.size()];
+            int[] index = new int[1];
+            cloud.forEach((pos, density) ->
+            {
+                int cell = ((pos.getX() - origin[0]) * size[1] + (pos.getY() - origin[1])) * size[2] + (pos.getZ() - origin[2]);
+                int quantized = MathHelper.clamp((int) Math.round(density / densityScale * DENSITY_STEPS), 0, DENSITY_STEPS);
+                particles[index[0]++] = (long) cell << 8 | quantized;
+            });
+            Arrays.sort(particles);
+
+            int[] cells = new int[particles.length];
+            byte[] densities = new byte[particles.length];
+            for (int i = 0; i < particles.length; i++)
+            {
+                cells[i] = (int) (particles[i] >>> 8);
+                densities[i] = (byte) particles[i];
+            }
+
+            compound.setIntArray("cloudOrigin", origin);
+            compound.setIntArray("cloudSize", size);
+            compound.setIntArray("cloudCells", cells);
+            compound.setByteArray("cloudDensities", densities);
+            compound.setDouble("cloudDensityScale", densityScale);
+
+            return true;
+        }
     }
 }
@@ -14,6 +14,7 @@ import ivorius.reccomplex.gui.table.datasource.TableDataSource;
 import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.json.JsonUtils;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.structure.*;
 import ivorius.reccomplex.utils.expression.EnvironmentExpression;
 import ivorius.reccomplex.world.gen.feature.structure.context.*;
@@ -181,8 +182,23 @@ public class TransformerMulti extends Transformer<TransformerMulti.InstanceData>
     public void transform(InstanceData instanceData, Phase phase, StructureSpawnContext context, IvWorldData worldData, RunTransformer transformer)
     {
         if (!instanceData.deactivated)
-            //noinspection unchecked
-            instanceData.pairedTransformers.forEach(pair -> pair.getLeft().transform(pair.getRight(), phase, context, worldData, transformer));
+        {
+            RCWorldgenMonitor.Phase monitorPhase = phase == Phase.BEFORE ? RCWorldgenMonitor.Phase.TRANSFORM_BEFORE : RCWorldgenMonitor.Phase.TRANSFORM_AFTER;
+
+            for (Pair<Transformer, NBTStorable> pair : instanceData.pairedTransformers)
+            {
+                RCWorldgenMonitor.startTransformer(monitorPhase, pair.getLeft().id());
+                try
+                {
+                    //noinspection unchecked
+                    pair.getLeft().transform(pair.getRight(), phase, context, worldData, transformer);
+                }
+                finally
+                {
+                    RCWorldgenMonitor.stop();
+                }
+            }
+        }
     }
 
     public static class InstanceData implements NBTStorable
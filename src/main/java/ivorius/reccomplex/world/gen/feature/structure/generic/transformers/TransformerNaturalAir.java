@@ -108,7 +108,7 @@ public class TransformerNaturalAir extends TransformerAbstractCloud<TransformerN
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
             // Remove dying foliage
-            HashSet<BlockPos> check = instanceData.cloud.keySet().stream()
+            HashSet<BlockPos> check = instanceData.cloud.positions()
                     .flatMap(pos -> new BlockArea(pos.subtract(new Vec3i(2, 2, 2)), pos.add(new Vec3i(2, 2, 2))).stream())
                     .filter(pos -> !instanceData.cloud.containsKey(pos))
                     .map(pos -> context.transform.apply(pos, areaSize).add(lowerCoord))
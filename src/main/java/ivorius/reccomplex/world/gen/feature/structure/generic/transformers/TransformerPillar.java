@@ -9,6 +9,7 @@ import com.google.gson.*;
 import ivorius.ivtoolkit.blocks.BlockStates;
 import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import net.minecraft.util.math.BlockPos;
 import ivorius.ivtoolkit.tools.MCRegistry;
@@ -66,6 +67,12 @@ public class TransformerPillar extends TransformerSingleBlock<NBTNone>
         return sourceMatcher.test(state);
     }
 
+    @Override
+    public boolean mayMatch(NBTNone instanceData, BlockStateHistogram histogram)
+    {
+        return histogram.anyMatch(sourceMatcher::test);
+    }
+
     @Override
     public void transformBlock(NBTNone instanceData, Phase phase, StructureSpawnContext context, RunTransformer transformer, int[] areaSize, BlockPos coord, IBlockState sourceState)
     {
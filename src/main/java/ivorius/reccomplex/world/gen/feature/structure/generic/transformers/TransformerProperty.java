@@ -15,6 +15,7 @@ import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
@@ -93,6 +94,12 @@ public class TransformerProperty extends TransformerSingleBlock<NBTNone>
         return sourceMatcher.test(state) && withProperty(state, propertyName, propertyValue).isPresent();
     }
 
+    @Override
+    public boolean mayMatch(NBTNone instanceData, BlockStateHistogram histogram)
+    {
+        return histogram.anyMatch(sourceMatcher::test);
+    }
+
     @Override
     public void transformBlock(NBTNone instanceData, Phase phase, StructureSpawnContext context, RunTransformer transformer, int[] areaSize, BlockPos coord, IBlockState sourceState)
     {
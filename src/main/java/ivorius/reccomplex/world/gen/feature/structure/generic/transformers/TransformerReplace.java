@@ -10,6 +10,7 @@ import com.google.gson.reflect.TypeToken;
 import ivorius.ivtoolkit.blocks.BlockStates;
 import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.utils.presets.PresettedObjects;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
@@ -88,6 +89,12 @@ public class TransformerReplace extends TransformerSingleBlock<TransformerReplac
         return sourceMatcher.test(state);
     }
 
+    @Override
+    public boolean mayMatch(InstanceData instanceData, BlockStateHistogram histogram)
+    {
+        return histogram.anyMatch(sourceMatcher::test);
+    }
+
     @Override
     public void transformBlock(InstanceData instanceData, Phase phase, StructureSpawnContext context, RunTransformer transformer, int[] areaSize, BlockPos coord, IBlockState sourceState)
     {
@@ -515,7 +515,14 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             volumeField = compound.hasKey("volumeField", Constants.NBT.TAG_COMPOUND)
                     ? NBTCompoundObjects.read(compound.getCompoundTag("volumeField"), BlurredValueField::new)
                     : null;
-            fallingBlocks.addAll(NBTTagLists.intArraysFrom(compound, "fallingBlocks").stream().map(BlockPositions::fromIntArray).collect(Collectors.toList()));
+            if (compound.hasKey("fallingBlockCoords", Constants.NBT.TAG_INT_ARRAY))
+            {
+                int[] coords = compound.getIntArray("fallingBlockCoords");
+                for (int i = 0; i + 2 < coords.length; i += 3)
+                    fallingBlocks.add(new BlockPos(coords[i], coords[i + 1], coords[i + 2]));
+            }
+            else // Legacy
+                fallingBlocks.addAll(NBTTagLists.intArraysFrom(compound, "fallingBlocks").stream().map(BlockPositions::fromIntArray).collect(Collectors.toList()));
             clearDecayCache();
         }
 
@@ -529,7 +536,17 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
                 compound.setTag("field", NBTCompoundObjects.write(surfaceField));
             if (volumeField != null)
                 compound.setTag("volumeField", NBTCompoundObjects.write(volumeField));
-            NBTTagLists.writeIntArraysTo(compound, "fallingBlocks", fallingBlocks.stream().map(BlockPositions::toIntArray).collect(Collectors.toList()));
+
+            // One flat array instead of one tag per block
+            int[] coords = new int[fallingBlocks.size() * 3];
+            int index = 0;
+            for (BlockPos pos : fallingBlocks)
+            {
+                coords[index++] = pos.getX();
+                coords[index++] = pos.getY();
+                coords[index++] = pos.getZ();
+            }
+            compound.setIntArray("fallingBlockCoords", coords);
             return compound;
         }
 
@@ -10,6 +10,7 @@ import ivorius.ivtoolkit.blocks.IvMutableBlockPos;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
 import ivorius.reccomplex.nbt.NBTStorable;
 import ivorius.reccomplex.utils.*;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLiveContext;
 import net.minecraft.util.math.BlockPos;
@@ -45,6 +46,10 @@ public abstract class TransformerSingleBlock<S extends NBTStorable> extends Tran
 
         IvBlockCollection blockCollection = worldData.blockCollection;
 
+        BlockStateHistogram histogram = BlockStateHistogram.known(blockCollection);
+        if (histogram != null && !mayMatch(instanceData, histogram))
+            return;
+
         StructureBoundingBox relevantSourceArea = context.sourceIntersection(BlockAreas.toBoundingBox(blockCollection.area()));
         if (relevantSourceArea == null)
             return;
@@ -74,6 +79,14 @@ public abstract class TransformerSingleBlock<S extends NBTStorable> extends Tran
 
     public abstract boolean generatesInPhase(S instanceData, Phase phase);
 
+    /**
+     * @return False if no state in the histogram can match, regardless of position, so the block scan can be skipped.
+     */
+    public boolean mayMatch(S instanceData, BlockStateHistogram histogram)
+    {
+        return true;
+    }
+
     public abstract boolean matches(Environment environment, S instanceData, BlockPos sourcePos, IBlockState state);
 
     public abstract void transformBlock(S instanceData, Phase phase, StructureSpawnContext context, RunTransformer transformer, int[] areaSize, BlockPos coord, IBlockState sourceState);
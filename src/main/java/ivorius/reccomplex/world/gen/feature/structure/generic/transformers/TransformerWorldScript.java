@@ -19,6 +19,7 @@ import ivorius.reccomplex.json.NBTToJson;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
 import ivorius.reccomplex.world.gen.feature.StructureGenerator;
 import ivorius.reccomplex.world.gen.script.WorldScriptMulti;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockStateHistogram;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
@@ -63,6 +64,12 @@ public class TransformerWorldScript extends TransformerSingleBlock<TransformerWo
         return sourceMatcher.test(state);
     }
 
+    @Override
+    public boolean mayMatch(InstanceData instanceData, BlockStateHistogram histogram)
+    {
+        return histogram.anyMatch(sourceMatcher::test);
+    }
+
     @Override
     public void transformBlock(InstanceData instanceData, Phase phase, StructureSpawnContext context, RunTransformer transformer, int[] areaSize, BlockPos coord, IBlockState sourceState)
     {
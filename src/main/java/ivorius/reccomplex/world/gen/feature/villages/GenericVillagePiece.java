@@ -189,6 +189,7 @@ public class GenericVillagePiece extends StructureVillagePieces.Village
             WorldStructureGenerationData.StructureEntry sight = ((StructureGenerator.GenerationResult.Success.New) result).sight;
             
             sight.setPreventComplementation(true);
+            WorldStructureGenerationData.get(world).markDirty(sight);
         }
 
         startedGeneration = true;
@@ -39,6 +39,7 @@ import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.RunTr
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.common.util.Constants;
@@ -271,22 +272,25 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
 
         int totalRooms = mazeComponent.rooms.compile(true).size();
 
-        final ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>> future = executor.submit(() -> MazeComponentConnector.connect(maze,
-                transformedComponents, connectorStrategy,
-                new MazePredicateMany<>(predicates),
-                random,
-                RCConfig.mazePlacementReversesPerRoom >= 0 ? MathHelper.floor(totalRooms * RCConfig.mazePlacementReversesPerRoom + 0.5f) : MazeComponentConnector.INFINITE_REVERSES
-        ));
-        executor.shutdown();
-
         try
         {
-            return future.get(RCConfig.mazeTimeout, TimeUnit.MILLISECONDS);
+            return MazeSolver.<List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>, Connector>solve(RCConfig.mazeTimeout, cancellation ->
+            {
+                // First, so the solve is aborted before any expensive rules are consulted
+                List<MazePredicate<Connector>> cancellable = new ArrayList<>();
+                cancellable.add(cancellation);
+                cancellable.addAll(predicates);
+
+                return MazeComponentConnector.connect(maze,
+                        transformedComponents, connectorStrategy,
+                        new MazePredicateMany<>(cancellable),
+                        random,
+                        RCConfig.mazePlacementReversesPerRoom >= 0 ? MathHelper.floor(totalRooms * RCConfig.mazePlacementReversesPerRoom + 0.5f) : MazeComponentConnector.INFINITE_REVERSES
+                );
+            });
         }
         catch (TimeoutException e)
         {
-            future.cancel(true);
             throw new GenerationException("Maze generation timed out: " + mazeID);
         }
         catch (ExecutionException | InterruptedException e)
@@ -300,6 +304,9 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
 
     public static class InstanceData implements NBTStorable
     {
+        // Structure index, generation index, transform and flags, lower coord
+        public static final int PLACEMENT_INTS = 6;
+
         public final List<PlacedStructure> placedStructures = new ArrayList<>();
 
         public InstanceData()
@@ -309,16 +316,75 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
 
         public InstanceData(NBTTagCompound compound)
         {
-            placedStructures.addAll(NBTCompoundObjects.readListFrom(compound, "placedStructures", PlacedStructure::new));
+            if (compound.hasKey("placements", Constants.NBT.TAG_INT_ARRAY))
+                readCompact(compound);
+            else // Legacy, one compound per placement
+                placedStructures.addAll(NBTCompoundObjects.readListFrom(compound, "placedStructures", PlacedStructure::new));
+        }
+
+        protected void readCompact(NBTTagCompound compound)
+        {
+            NBTTagList structureIDs = compound.getTagList("structureIDs", Constants.NBT.TAG_STRING);
+            NBTTagList generationIDs = compound.getTagList("generationIDs", Constants.NBT.TAG_STRING);
+            NBTTagList instanceDatas = compound.getTagList("instanceDatas", Constants.NBT.TAG_COMPOUND);
+            int[] placements = compound.getIntArray("placements");
+
+            int instanceDataIndex = 0;
+            for (int i = 0; i + PLACEMENT_INTS - 1 < placements.length; i += PLACEMENT_INTS)
+            {
+                int flags = placements[i + 2];
+                boolean hasInstanceData = (flags & 8) != 0;
+
+                placedStructures.add(new PlacedStructure(
+                        structureIDs.getStringTagAt(placements[i]),
+                        placements[i + 1] >= 0 ? generationIDs.getStringTagAt(placements[i + 1]) : null,
+                        AxisAlignedTransform2D.from(flags & 3, (flags & 4) != 0),
+                        new BlockPos(placements[i + 3], placements[i + 4], placements[i + 5]),
+                        hasInstanceData ? instanceDatas.getCompoundTagAt(instanceDataIndex++) : null
+                ));
+            }
         }
 
         @Override
         public NBTBase writeToNBT()
         {
             NBTTagCompound compound = new NBTTagCompound();
-            NBTCompoundObjects.writeListTo(compound, "placedStructures", placedStructures);
+
+            // Rooms mostly repeat the same few structures, so IDs are written once and referenced by index
+            Map<String, Integer> structureIDs = new LinkedHashMap<>();
+            Map<String, Integer> generationIDs = new LinkedHashMap<>();
+            NBTTagList instanceDatas = new NBTTagList();
+            int[] placements = new int[placedStructures.size() * PLACEMENT_INTS];
+
+            int index = 0;
+            for (PlacedStructure placed : placedStructures)
+            {
+                boolean hasInstanceData = placed.instanceData instanceof NBTTagCompound; // Like the legacy format, others are dropped
+                if (hasInstanceData)
+                    instanceDatas.appendTag(placed.instanceData);
+
+                placements[index++] = structureIDs.computeIfAbsent(placed.structureID, id -> structureIDs.size());
+                placements[index++] = placed.generationInfoID != null ? generationIDs.computeIfAbsent(placed.generationInfoID, id -> generationIDs.size()) : -1;
+                placements[index++] = placed.transform.getRotation() | (placed.transform.isMirrorX() ? 4 : 0) | (hasInstanceData ? 8 : 0);
+                placements[index++] = placed.lowerCoord.getX();
+                placements[index++] = placed.lowerCoord.getY();
+                placements[index++] = placed.lowerCoord.getZ();
+            }
+
+            compound.setTag("structureIDs", strings(structureIDs.keySet()));
+            compound.setTag("generationIDs", strings(generationIDs.keySet()));
+            compound.setTag("instanceDatas", instanceDatas);
+            compound.setIntArray("placements", placements);
+
             return compound;
         }
+
+        protected static NBTTagList strings(Collection<String> strings)
+        {
+            NBTTagList list = new NBTTagList();
+            strings.forEach(string -> list.appendTag(new NBTTagString(string)));
+            return list;
+        }
     }
 
     public static class GenerationException extends RuntimeException implements StructureGenerator.ExpectedException
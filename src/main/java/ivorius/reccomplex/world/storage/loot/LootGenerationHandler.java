@@ -5,19 +5,25 @@
 
 package ivorius.reccomplex.world.storage.loot;
 
+import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.item.GeneratingItem;
+import ivorius.reccomplex.utils.ItemHandlers;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.world.gen.feature.structure.registry.MCRegistrySpecial;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.IItemHandlerModifiable;
 import org.apache.commons.lang3.tuple.Triple;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Random;
 
 /**
@@ -25,50 +31,155 @@ import java.util.Random;
  */
 public class LootGenerationHandler
 {
+    public static final String LAZY_SEED_KEY = RecurrentComplex.MOD_ID + ":lootSeed";
+    public static final int MAX_EXPANSIONS = 1000;
+
     public static void generateAllTags(WorldServer server, IItemHandlerModifiable inventory, MCRegistrySpecial.ItemHidingRegistry registry, Random random)
     {
-        List<Triple<ItemStack, GeneratingItem, Integer>> foundTags = new ArrayList<>();
-        boolean didChange = true;
+        // Only slots generators write to can hold new tags, so those are all that's looked at after the first scan
+        Deque<Triple<ItemStack, GeneratingItem, Integer>> foundTags = new ArrayDeque<>();
+        QueueingItemHandler queueing = new QueueingItemHandler(inventory, registry, foundTags);
+
+        for (int i = 0; i < inventory.getSlots(); i++)
+            queueing.collect(i);
+
         int cycles = 0;
+        while (!foundTags.isEmpty() && cycles++ < MAX_EXPANSIONS)
+        {
+            Triple<ItemStack, GeneratingItem, Integer> tag = foundTags.poll();
+            tag.getMiddle().generateInInventory(server, queueing, random, tag.getLeft(), tag.getRight());
+        }
+    }
+
+    public static void generateAllTags(@Nonnull StructureSpawnContext context, IItemHandlerModifiable inventory)
+    {
+        generateAllTags(context.environment.world, inventory, RecurrentComplex.specialRegistry.itemHidingMode(), context.random);
+    }
+
+    /**
+     * Generates the tile entity's loot now, or, in lazy mode, leaves the tags in the inventory with a seed to
+     * generate them from the first time the inventory is opened or broken.
+     */
+    public static void generateAllTags(@Nonnull StructureSpawnContext context, @Nonnull TileEntity tileEntity, IItemHandlerModifiable inventory)
+    {
+        if (RCConfig.lazyLoot)
+        {
+            if (containsTags(inventory, RecurrentComplex.specialRegistry.itemHidingMode()))
+                tileEntity.getTileData().setLong(LAZY_SEED_KEY, context.random.nextLong());
+        }
+        else
+            generateAllTags(context, inventory);
+    }
+
+    /**
+     * Generates any loot that was deferred in lazy mode.
+     *
+     * @return Whether loot was deferred.
+     */
+    public static boolean materialize(@Nonnull WorldServer server, @Nullable TileEntity tileEntity)
+    {
+        if (tileEntity == null)
+            return false;
+
+        NBTTagCompound tileData = tileEntity.getTileData();
+        if (!tileData.hasKey(LAZY_SEED_KEY, Constants.NBT.TAG_LONG))
+            return false;
+
+        long seed = tileData.getLong(LAZY_SEED_KEY);
+        tileData.removeTag(LAZY_SEED_KEY);
+
+        IItemHandlerModifiable inventory = ItemHandlers.getModifiable(tileEntity, null);
+        if (inventory != null)
+            generateAllTags(server, inventory, RecurrentComplex.specialRegistry.itemHidingMode(), new Random(seed));
+
+        tileEntity.markDirty();
+        return true;
+    }
+
+    public static boolean containsTags(IItemHandlerModifiable inventory, MCRegistrySpecial.ItemHidingRegistry registry)
+    {
+        for (int i = 0; i < inventory.getSlots(); i++)
+        {
+            ItemStack stack = inventory.getStackInSlot(i);
+            if (!stack.isEmpty() && registry.containedItem(stack) instanceof GeneratingItem)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Passes writes on to the inventory, taking out any tags that are written and queueing them for expansion.
+     */
+    protected static class QueueingItemHandler implements IItemHandlerModifiable
+    {
+        protected final IItemHandlerModifiable inventory;
+        protected final MCRegistrySpecial.ItemHidingRegistry registry;
+        protected final Deque<Triple<ItemStack, GeneratingItem, Integer>> queue;
 
-        do
+        public QueueingItemHandler(IItemHandlerModifiable inventory, MCRegistrySpecial.ItemHidingRegistry registry, Deque<Triple<ItemStack, GeneratingItem, Integer>> queue)
         {
-            if (didChange)
+            this.inventory = inventory;
+            this.registry = registry;
+            this.queue = queue;
+        }
+
+        public void collect(int slot)
+        {
+            ItemStack stack = inventory.getStackInSlot(slot);
+
+            if (!stack.isEmpty())
             {
-                for (int i = 0; i < inventory.getSlots(); i++)
+                Item item = registry.containedItem(stack);
+                if (item instanceof GeneratingItem)
                 {
-                    ItemStack stack = inventory.getStackInSlot(i);
-
-                    if (!stack.isEmpty())
-                    {
-                        Item item = registry.containedItem(stack);
-                        if (item instanceof GeneratingItem)
-                        {
-                            foundTags.add(Triple.of(stack, (GeneratingItem) item, i));
-                            inventory.setStackInSlot(i, ItemStack.EMPTY);
-                        }
-                    }
+                    queue.add(Triple.of(stack, (GeneratingItem) item, slot));
+                    inventory.setStackInSlot(slot, ItemStack.EMPTY);
                 }
-
-                didChange = false;
             }
+        }
 
-            if (foundTags.size() > 0)
-            {
-                Triple<ItemStack, GeneratingItem, Integer> pair = foundTags.get(0);
-                pair.getMiddle().generateInInventory(server, inventory, random, pair.getLeft(), pair.getRight());
+        @Override
+        public void setStackInSlot(int slot, @Nonnull ItemStack stack)
+        {
+            inventory.setStackInSlot(slot, stack);
+            collect(slot);
+        }
 
-                foundTags.remove(0);
-                didChange = true;
-            }
+        @Override
+        public int getSlots()
+        {
+            return inventory.getSlots();
+        }
 
-            cycles++;
+        @Nonnull
+        @Override
+        public ItemStack getStackInSlot(int slot)
+        {
+            return inventory.getStackInSlot(slot);
         }
-        while ((foundTags.size() > 0 || didChange) && cycles < 1000);
-    }
 
-    public static void generateAllTags(@Nonnull StructureSpawnContext context, IItemHandlerModifiable inventory)
-    {
-        generateAllTags(context.environment.world, inventory, RecurrentComplex.specialRegistry.itemHidingMode(), context.random);
+        @Nonnull
+        @Override
+        public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate)
+        {
+            ItemStack remaining = inventory.insertItem(slot, stack, simulate);
+            if (!simulate)
+                collect(slot);
+            return remaining;
+        }
+
+        @Nonnull
+        @Override
+        public ItemStack extractItem(int slot, int amount, boolean simulate)
+        {
+            return inventory.extractItem(slot, amount, simulate);
+        }
+
+        @Override
+        public int getSlotLimit(int slot)
+        {
+            return inventory.getSlotLimit(slot);
+        }
     }
 }
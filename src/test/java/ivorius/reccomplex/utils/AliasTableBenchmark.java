@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alias table picks against walking the cumulative weights, like WeightedSelector does.
+ * Run with gradlew jmh -Pbenchmarks=AliasTableBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasTableBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    protected List<Integer> items;
+    protected double[] weights;
+    protected double totalWeight;
+    protected AliasTable<Integer> table;
+
+    protected Random random = new Random(0);
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(size);
+        items = AliasTableTest.indices(size);
+        weights = new double[size];
+        for (int i = 0; i < size; i++)
+            totalWeight += (weights[i] = random.nextDouble() * 10);
+
+        table = new AliasTable<>(items, weights);
+    }
+
+    @Benchmark
+    public Integer linear()
+    {
+        double pick = random.nextDouble() * totalWeight;
+        for (int i = 0; i < size; i++)
+        {
+            if ((pick -= weights[i]) < 0)
+                return items.get(i);
+        }
+        return items.get(size - 1);
+    }
+
+    @Benchmark
+    public Integer alias()
+    {
+        return table.select(random);
+    }
+
+    @Benchmark
+    public AliasTable<Integer> build()
+    {
+        return new AliasTable<>(items, weights);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AliasTableTest
+{
+    public static final int SAMPLES = 400000;
+    // Several standard deviations at this sample count
+    public static final double TOLERANCE = 0.005;
+
+    protected static int[] sample(AliasTable<Integer> table, int size, long seed)
+    {
+        Random random = new Random(seed);
+        int[] counts = new int[size];
+        for (int i = 0; i < SAMPLES; i++)
+            counts[table.select(random)]++;
+        return counts;
+    }
+
+    protected static List<Integer> indices(int size)
+    {
+        Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++)
+            indices[i] = i;
+        return Arrays.asList(indices);
+    }
+
+    protected static void assertDistribution(double[] weights, long seed)
+    {
+        AliasTable<Integer> table = new AliasTable<>(indices(weights.length), weights);
+        int[] counts = sample(table, weights.length, seed);
+
+        double total = Arrays.stream(weights).map(w -> Math.max(0, w)).sum();
+        assertEquals(total, table.totalWeight(), 1e-9);
+
+        for (int i = 0; i < weights.length; i++)
+            assertEquals("Item " + i, Math.max(0, weights[i]) / total, (double) counts[i] / SAMPLES, TOLERANCE);
+    }
+
+    @Test
+    public void selectsByWeight()
+    {
+        assertDistribution(new double[]{1, 2, 3, 4}, 0);
+        assertDistribution(new double[]{0.001, 100, 0.5, 7, 7, 30}, 1);
+        assertDistribution(new double[]{5}, 2);
+    }
+
+    @Test
+    public void selectsByWeightFromManyItems()
+    {
+        Random random = new Random(3);
+        double[] weights = new double[50];
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = random.nextDouble() * 10;
+        assertDistribution(weights, 4);
+    }
+
+    @Test
+    public void neverSelectsZeroWeights()
+    {
+        double[] weights = {0, 3, 0, 0, 1, 0, -2, 0};
+        assertDistribution(weights, 5);
+
+        int[] counts = sample(new AliasTable<>(indices(weights.length), weights), weights.length, 6);
+        for (int i = 0; i < weights.length; i++)
+        {
+            if (weights[i] <= 0)
+                assertEquals("Item " + i, 0, counts[i]);
+        }
+    }
+
+    @Test
+    public void selectsNothingWithoutWeight()
+    {
+        Random random = new Random(7);
+        assertNull(new AliasTable<>(indices(3), new double[]{0, 0, -1}).select(random));
+        assertNull(new AliasTable<Integer>(Collections.emptyList(), new double[0]).select(random));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedWeights()
+    {
+        new AliasTable<>(indices(3), new double[2]);
+    }
+}
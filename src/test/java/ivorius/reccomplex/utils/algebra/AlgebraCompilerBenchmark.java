@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.algebra;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled against interpreted evaluation of the same expressions. Run with gradlew jmh -Pbenchmarks=AlgebraCompilerBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlgebraCompilerBenchmark
+{
+    public static final String INT_EXPRESSION = "$0 - (3 - $1) + ($2 - (1 + 2)) - $0";
+    public static final String BOOL_EXPRESSION = "!($0 | $1) | ($2 & !$0) | false";
+
+    protected IntFunctionExpressionCache<int[], Object> intCache;
+    protected BoolFunctionExpressionCache<boolean[], Object> boolCache;
+
+    protected int[] ints = {5, -7, 12};
+    protected boolean[] bools = {false, true, true};
+
+    @Setup
+    public void setup()
+    {
+        intCache = AlgebraCompilerTest.intCache(INT_EXPRESSION);
+        boolCache = AlgebraCompilerTest.boolCache(BOOL_EXPRESSION);
+    }
+
+    @Benchmark
+    public int intInterpreted()
+    {
+        return AlgebraCompilerTest.interpret(intCache, ints);
+    }
+
+    @Benchmark
+    public int intCompiled()
+    {
+        return intCache.applyAsInt(ints);
+    }
+
+    @Benchmark
+    public boolean boolInterpreted()
+    {
+        return AlgebraCompilerTest.interpret(boolCache, bools);
+    }
+
+    @Benchmark
+    public boolean boolCompiled()
+    {
+        return boolCache.test(bools);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.algebra;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class AlgebraCompilerTest
+{
+    public static final Algebra<Integer> INT_ALGEBRA = new Algebra<>(
+            IntAlgebra.parentheses("(", ")"),
+            IntAlgebra.plus("+"), IntAlgebra.minus("-")
+    );
+
+    public static final String[] INT_EXPRESSIONS = {
+            "1", "$0", "$0 + $1", "$0 - (3 - $1) - 2", "(1 + 2) - (4 - 8)", "$2 - $2 + ($0 - (1 + $1))"
+    };
+
+    public static final String[] BOOL_EXPRESSIONS = {
+            "true", "$0", "!$0", "$0 & $1", "$0 | !$1 & $2", "false | $0", "($0 ?? $1 :: $2) & true", "!($0 | $1) | ($2 & !$0)"
+    };
+
+    public static IntFunctionExpressionCache<int[], Object> intCache(String expression)
+    {
+        IntFunctionExpressionCache<int[], Object> cache = new IntFunctionExpressionCache<>(INT_ALGEBRA);
+        cache.addType(new FunctionExpressionCache.VariableType<Integer, int[], Object>("$", "")
+        {
+            @Override
+            public Function<SupplierCache<int[]>, Integer> parse(String var)
+            {
+                int index = Integer.parseInt(var);
+                return a -> a.get()[index];
+            }
+
+            @Override
+            public FunctionExpressionCache.Validity validity(String var, Object o)
+            {
+                return FunctionExpressionCache.Validity.KNOWN;
+            }
+        });
+        return ExpressionCache.of(cache, expression);
+    }
+
+    public static BoolFunctionExpressionCache<boolean[], Object> boolCache(String expression)
+    {
+        BoolFunctionExpressionCache<boolean[], Object> cache = new BoolFunctionExpressionCache<>(RCBoolAlgebra.algebra());
+        cache.addType(new FunctionExpressionCache.VariableType<Boolean, boolean[], Object>("$", "")
+        {
+            @Override
+            public Function<SupplierCache<boolean[]>, Boolean> parse(String var)
+            {
+                int index = Integer.parseInt(var);
+                return a -> a.get()[index];
+            }
+
+            @Override
+            public FunctionExpressionCache.Validity validity(String var, Object o)
+            {
+                return FunctionExpressionCache.Validity.KNOWN;
+            }
+        });
+        return ExpressionCache.of(cache, expression);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <T, A> T interpret(FunctionExpressionCache<T, A, ?> cache, A a)
+    {
+        SupplierCache<A> supplier = SupplierCache.direct(a);
+        return ((Algebra.Expression<T, Function<SupplierCache<A>, T>>) cache.getParsedExpression()).evaluate(fun -> fun.apply(supplier));
+    }
+
+    @Test
+    public void compilesIntExpressions()
+    {
+        Random random = new Random(0);
+        for (String expression : INT_EXPRESSIONS)
+        {
+            IntFunctionExpressionCache<int[], Object> cache = intCache(expression);
+            assertTrue(expression, cache.isExpressionValid());
+            assertNotNull("Not compiled: " + expression, cache.compiled());
+
+            for (int i = 0; i < 100; i++)
+            {
+                int[] values = {random.nextInt(200) - 100, random.nextInt(200) - 100, random.nextInt(200) - 100};
+                int expected = interpret(cache, values);
+                assertEquals(expression, expected, cache.applyAsInt(values));
+                assertEquals(expression, (Integer) expected, cache.evaluate(values));
+            }
+        }
+    }
+
+    @Test
+    public void compilesBoolExpressions()
+    {
+        for (String expression : BOOL_EXPRESSIONS)
+        {
+            BoolFunctionExpressionCache<boolean[], Object> cache = boolCache(expression);
+            assertTrue(expression, cache.isExpressionValid());
+            assertNotNull("Not compiled: " + expression, cache.compiled());
+
+            for (int i = 0; i < 8; i++)
+            {
+                boolean[] values = {(i & 1) != 0, (i & 2) != 0, (i & 4) != 0};
+                assertEquals(expression, interpret(cache, values), cache.test(values));
+            }
+        }
+    }
+
+    @Test
+    public void recompilesOnChange()
+    {
+        IntFunctionExpressionCache<int[], Object> cache = intCache("$0 + 1");
+        assertEquals(3, cache.applyAsInt(new int[]{2}));
+
+        cache.setExpression("$0 - 1");
+        assertEquals(1, cache.applyAsInt(new int[]{2}));
+    }
+}
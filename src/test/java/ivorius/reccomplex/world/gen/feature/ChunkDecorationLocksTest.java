@@ -0,0 +1,142 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Decorates like {@link WorldGenStructures#decorate}, with generation cascading into neighboring chunks,
+ * but without a world to generate in.
+ */
+public class ChunkDecorationLocksTest
+{
+    public static final int THREADS = 8;
+    public static final int CHUNKS = WorldStructureGenerationData.REGION_SIZE * 3;
+
+    protected final WorldStructureGenerationData data = new WorldStructureGenerationData();
+    // Few stripes, so that unrelated chunks contend too
+    protected final ChunkDecorationLocks locks = new ChunkDecorationLocks(16);
+    protected final Queue<ChunkPos> deferred = new ConcurrentLinkedQueue<>();
+
+    protected final Set<ChunkPos> populated = ConcurrentHashMap.newKeySet();
+    protected final Map<UUID, WorldStructureGenerationData.StructureEntry> planned = new ConcurrentHashMap<>();
+    // Chunks each entry was generated or complemented in
+    protected final Map<UUID, Set<ChunkPos>> generated = new ConcurrentHashMap<>();
+
+    protected void generate(WorldStructureGenerationData.StructureEntry entry, ChunkPos chunk)
+    {
+        assertTrue("Generated twice", generated.computeIfAbsent(entry.getUuid(), id -> ConcurrentHashMap.newKeySet()).add(chunk));
+    }
+
+    protected void populate(ChunkPos chunk, Random random)
+    {
+        if (chunk.x >= 0 && chunk.z >= 0 && chunk.x < CHUNKS && chunk.z < CHUNKS && populated.add(chunk))
+            decorate(chunk, random);
+    }
+
+    protected void decorate(ChunkPos chunk, Random random)
+    {
+        if (!locks.lock(0, chunk))
+        {
+            deferred.add(chunk);
+            return;
+        }
+
+        try
+        {
+            for (WorldStructureGenerationData.StructureEntry entry : data.checkChunkForComplementation(chunk))
+                generate(entry, chunk);
+
+            if (!data.checkChunkFinal(chunk))
+                return;
+
+            int x = chunk.x * 16 + 8, z = chunk.z * 16 + 8;
+            StructureBoundingBox boundingBox = new StructureBoundingBox(x, 0, z,
+                    Math.min(x + random.nextInt(40), CHUNKS * 16 - 1), 10, Math.min(z + random.nextInt(40), CHUNKS * 16 - 1));
+            WorldStructureGenerationData.StructureEntry entry = WorldStructureGenerationData.StructureEntry.complete("structure", null, boundingBox, AxisAlignedTransform2D.ORIGINAL, false);
+
+            Set<ChunkPos> checked = data.addEntryIfFree(entry, WorldStructureGenerationData.Entry::blocking);
+            if (checked == null)
+                return;
+            planned.put(entry.getUuid(), entry);
+
+            for (ChunkPos other : checked)
+                generate(entry, other);
+
+            // Generating reaches into neighbors, which makes them populate
+            for (ChunkPos other : entry.rasterize())
+            {
+                if (random.nextInt(3) == 0)
+                    populate(other, random);
+            }
+        }
+        finally
+        {
+            locks.unlock(0, chunk);
+        }
+    }
+
+    @Test
+    public void decoratesWithoutLosingStructures() throws Exception
+    {
+        List<ChunkPos> chunks = new ArrayList<>();
+        for (int x = 0; x < CHUNKS; x++)
+            for (int z = 0; z < CHUNKS; z++)
+                chunks.add(new ChunkPos(x, z));
+        Collections.shuffle(chunks, new Random(0));
+
+        AtomicInteger nextChunk = new AtomicInteger();
+
+        Callable<?>[] tasks = new Callable<?>[THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+            Random random = new Random(t);
+            tasks[t] = () ->
+            {
+                int index;
+                while ((index = nextChunk.getAndIncrement()) < chunks.size())
+                    populate(chunks.get(index), random);
+                return null;
+            };
+        }
+
+        WorldStructureGenerationDataTest.runConcurrently(tasks);
+
+        // Like the server tick would
+        Random random = new Random();
+        ChunkPos chunk;
+        while ((chunk = deferred.poll()) != null)
+            decorate(chunk, random);
+
+        assertEquals(chunks.size(), populated.size());
+        assertFalse(planned.isEmpty());
+
+        for (WorldStructureGenerationData.StructureEntry entry : planned.values())
+        {
+            assertSame(entry, data.getEntry(entry.getUuid()));
+            assertEquals("Not generated everywhere", entry.rasterize(), generated.get(entry.getUuid()));
+        }
+        assertEquals(planned.keySet(), generated.keySet());
+
+        List<WorldStructureGenerationData.StructureEntry> entries = new ArrayList<>(planned.values());
+        for (int i = 0; i < entries.size(); i++)
+            for (int j = i + 1; j < entries.size(); j++)
+                assertFalse("Overlapping structures", entries.get(i).getBoundingBox().intersectsWith(entries.get(j).getBoundingBox()));
+
+        assertEquals(planned.size(), data.structureCount("structure"));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WorldStructureGenerationDataTest
+{
+    public static final int THREADS = 8;
+    public static final int ENTRIES = 2000;
+    // 4x4 regions, so entries often span several
+    public static final int CHUNKS = WorldStructureGenerationData.REGION_SIZE * 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    protected static WorldStructureGenerationData.StructureEntry randomEntry(Random random)
+    {
+        int x = random.nextInt((CHUNKS - 4) * 16), z = random.nextInt((CHUNKS - 4) * 16);
+        StructureBoundingBox boundingBox = new StructureBoundingBox(x, 0, z, x + random.nextInt(48), 10, z + random.nextInt(48));
+        return WorldStructureGenerationData.StructureEntry.complete("structure" + random.nextInt(4), null, boundingBox, AxisAlignedTransform2D.ORIGINAL, false);
+    }
+
+    protected static void runConcurrently(Callable<?>... tasks) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.length);
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<?> task : tasks)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    return task.call();
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void complementsEveryChunkOnce() throws Exception
+    {
+        WorldStructureGenerationData data = new WorldStructureGenerationData();
+
+        List<ChunkPos> chunks = new ArrayList<>();
+        for (int x = 0; x < CHUNKS; x++)
+            for (int z = 0; z < CHUNKS; z++)
+                chunks.add(new ChunkPos(x, z));
+        Collections.shuffle(chunks, new Random(0));
+
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger nextEntry = new AtomicInteger();
+
+        // Chunks each entry is complemented in, by whoever found it
+        Map<UUID, Set<ChunkPos>> complemented = new ConcurrentHashMap<>();
+        Map<UUID, WorldStructureGenerationData.Entry> added = new ConcurrentHashMap<>();
+
+        Callable<?>[] tasks = new Callable<?>[THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+            Random random = new Random(t);
+            tasks[t] = t % 2 == 0
+                    ? () ->
+            {
+                int index;
+                while ((index = nextChunk.getAndIncrement()) < chunks.size())
+                {
+                    ChunkPos chunk = chunks.get(index);
+                    for (WorldStructureGenerationData.StructureEntry entry : data.checkChunkForComplementation(chunk))
+                        assertTrue("Complemented twice", complemented.computeIfAbsent(entry.getUuid(), id -> ConcurrentHashMap.newKeySet()).add(chunk));
+                }
+                return null;
+            }
+                    : () ->
+            {
+                while (nextEntry.getAndIncrement() < ENTRIES)
+                {
+                    WorldStructureGenerationData.StructureEntry entry = randomEntry(random);
+                    added.put(entry.getUuid(), entry);
+                    for (ChunkPos chunk : data.addEntry(entry))
+                        assertTrue("Complemented twice", complemented.computeIfAbsent(entry.getUuid(), id -> ConcurrentHashMap.newKeySet()).add(chunk));
+                }
+                return null;
+            };
+        }
+
+        runConcurrently(tasks);
+
+        assertEquals(ENTRIES, added.size());
+        for (WorldStructureGenerationData.Entry entry : added.values())
+        {
+            assertSame(entry, data.getEntry(entry.getUuid()));
+            assertEquals("Not complemented everywhere", entry.rasterize(), complemented.getOrDefault(entry.getUuid(), Collections.emptySet()));
+        }
+
+        int counted = 0;
+        for (int i = 0; i < 4; i++)
+            counted += data.structureCount("structure" + i);
+        assertEquals(ENTRIES, counted);
+    }
+
+    @Test
+    public void keepsEntriesWhileSavingRegions() throws Exception
+    {
+        WorldStructureGenerationData data = new WorldStructureGenerationData();
+        data.setRegionDirectory(folder.newFolder("regions"));
+
+        List<WorldStructureGenerationData.Entry> added = new CopyOnWriteArrayList<>();
+        AtomicInteger nextEntry = new AtomicInteger();
+        AtomicInteger adding = new AtomicInteger(THREADS / 2);
+        AtomicBoolean done = new AtomicBoolean();
+
+        Callable<?>[] tasks = new Callable<?>[THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+            Random random = new Random(t);
+            if (t == 0)
+            {
+                // Saves and unloads regions all the time
+                tasks[t] = () ->
+                {
+                    while (!done.get())
+                        data.writeToNBT(new NBTTagCompound());
+                    return null;
+                };
+            }
+            else if (t % 2 == 0)
+            {
+                tasks[t] = () ->
+                {
+                    while (!done.get())
+                    {
+                        if (added.isEmpty())
+                            continue;
+
+                        WorldStructureGenerationData.Entry entry = added.get(random.nextInt(added.size()));
+                        assertNotNull("Lost entry", data.getEntry(entry.getUuid()));
+                    }
+                    return null;
+                };
+            }
+            else
+            {
+                tasks[t] = () ->
+                {
+                    try
+                    {
+                        int index;
+                        while ((index = nextEntry.getAndIncrement()) < ENTRIES)
+                        {
+                            WorldStructureGenerationData.StructureEntry entry = randomEntry(random);
+                            data.addEntry(entry);
+
+                            // Some get removed right away again
+                            if (index % 5 == 0)
+                                assertNotNull(data.removeEntry(entry.getUuid()));
+                            else
+                                added.add(entry);
+                        }
+                    }
+                    finally
+                    {
+                        if (adding.decrementAndGet() == 0)
+                            done.set(true);
+                    }
+                    return null;
+                };
+            }
+        }
+
+        runConcurrently(tasks);
+
+        // Everything ends up on disk and can be found again from there
+        data.writeToNBT(new NBTTagCompound());
+        data.writeToNBT(new NBTTagCompound());
+
+        int count = 0;
+        for (int i = 0; i < 4; i++)
+            count += data.structureCount("structure" + i);
+        assertEquals(added.size(), count);
+
+        for (WorldStructureGenerationData.Entry entry : added)
+        {
+            WorldStructureGenerationData.Entry found = data.getEntry(entry.getUuid());
+            assertNotNull("Lost entry", found);
+            assertEquals(entry.getBoundingBox().toString(), found.getBoundingBox().toString());
+        }
+    }
+}
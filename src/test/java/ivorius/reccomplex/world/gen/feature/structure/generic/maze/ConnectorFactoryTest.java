@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://lukas.axxim.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.maze.components.*;
+import ivorius.reccomplex.world.gen.feature.structure.VariableDomain;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.BlockedConnectorStrategy;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.LimitAABBStrategy;
+import ivorius.reccomplex.world.gen.script.WorldScriptMazeGenerator;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ConnectorFactoryTest
+{
+    public static final MazeRoom ROOM = new MazeRoom(0, 0, 0);
+    public static final MazePassage ENTRANCE = new MazePassage(new MazeRoom(-1, 0, 0), ROOM);
+
+    /**
+     * A single room with an entrance on one side, built like a cached component variant.
+     */
+    protected static MazeComponentStructure<Connector> component(ConnectorFactory factory)
+    {
+        Map<MazePassage, Connector> exits = new HashMap<>();
+        exits.put(ENTRANCE.inverse(), factory.get(ConnectorStrategy.DEFAULT_PATH));
+        WorldGenMaze.addMissingExits(Collections.singleton(ROOM), exits, factory.get(ConnectorStrategy.DEFAULT_WALL));
+
+        return new MazeComponentStructure<>(1, "room", new VariableDomain(), AxisAlignedTransform2D.ORIGINAL,
+                ImmutableSet.of(ROOM), ImmutableMap.copyOf(exits), ImmutableMultimap.of());
+    }
+
+    /**
+     * Solves a walled in one room maze with its own factory, like every maze generation does.
+     */
+    protected static List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> solve(List<MazeComponentStructure<Connector>> components)
+    {
+        ConnectorFactory factory = new ConnectorFactory();
+        Connector wall = factory.get(ConnectorStrategy.DEFAULT_WALL);
+        Set<Connector> blockedConnections = Collections.singleton(wall);
+
+        MorphingMazeComponent<Connector> maze = new SetMazeComponent<>();
+        WorldScriptMazeGenerator.enclose(maze, new MazeRoom(-1, -1, -1), new MazeRoom(1, 1, 1), wall);
+        maze.exits().put(ENTRANCE, factory.get(ConnectorStrategy.DEFAULT_PATH));
+
+        List<MazePredicate<Connector>> predicates = new ArrayList<>();
+        predicates.add(new LimitAABBStrategy<>(new int[]{1, 1, 1}));
+        predicates.add(new BlockedConnectorStrategy<>(blockedConnections));
+
+        return MazeComponentConnector.connect(maze, components, new ConnectorStrategy(),
+                new MazePredicateMany<>(predicates), new Random(0), MazeComponentConnector.INFINITE_REVERSES);
+    }
+
+    @Test
+    public void generatesSameMazeTwice()
+    {
+        // Variants are cached across mazes, so they keep the connectors of the first maze's factory
+        List<MazeComponentStructure<Connector>> components = Collections.singletonList(component(new ConnectorFactory()));
+
+        for (int i = 0; i < 2; i++)
+        {
+            List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> placed = solve(components);
+            assertNotNull(placed);
+            assertEquals(1, placed.size());
+        }
+    }
+
+    @Test
+    public void acceptsConnectorsOfOtherFactories()
+    {
+        ConnectorFactory first = new ConnectorFactory();
+        ConnectorFactory second = new ConnectorFactory();
+
+        assertTrue(first.get("Path").accepts(second.get("Path")));
+        assertFalse(first.get("Path").accepts(second.get("Wall")));
+
+        String male = ConnectorFactory.MALE_PREFIX + "Door", female = ConnectorFactory.FEMALE_PREFIX + "Door";
+        assertTrue(first.get(male).accepts(second.get(female)));
+        assertTrue(second.get(female).accepts(first.get(male)));
+        assertFalse(first.get(male).accepts(second.get(male)));
+    }
+}